@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Генератор синтетических файлов фраз для бенчмарков
+ */
+final class BenchmarkCorpus {
+    
+    private BenchmarkCorpus() {
+    }
+    
+    /**
+     * Создает временный файл с заданным количеством фраз в формате win_phrases.txt
+     * @param prefix префикс имени файла
+     * @param lines количество фраз
+     * @return путь к созданному файлу, удаляется при завершении JVM
+     */
+    static Path write(String prefix, int lines) throws IOException {
+        return write(prefix, lines, false);
+    }
+    
+    /**
+     * Создает временный файл фраз, в котором при tagged каждая десятая фраза
+     * размечена для ярости и апокалипсиса с весом 5
+     */
+    static Path write(String prefix, int lines, boolean tagged) throws IOException {
+        Path file = Files.createTempFile("tiltovozik-" + prefix, ".txt");
+        file.toFile().deleteOnExit();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                if (tagged && i % 10 == 0) {
+                    writer.write("[RAGE,APOCALYPSE:5] ");
+                }
+                writer.write("Фраза номер " + i + " для игрока {username}, держись!");
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+    
+    /**
+     * Загружает менеджер фраз синтетическим корпусом заданного размера
+     */
+    static PhraseManager load(int corpusSize, int historySize) throws IOException {
+        return load(corpusSize, historySize, false);
+    }
+    
+    /**
+     * Загружает менеджер фраз синтетическим корпусом, размеченным при tagged
+     */
+    static PhraseManager load(int corpusSize, int historySize, boolean tagged) throws IOException {
+        PhraseManager manager = new PhraseManager(historySize);
+        manager.loadPhrases(write("win", corpusSize, tagged).toString(), write("lose", corpusSize, tagged).toString());
+        return manager;
+    }
+}
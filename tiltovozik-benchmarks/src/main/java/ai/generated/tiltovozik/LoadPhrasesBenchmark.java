@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Бенчмарк загрузки больших файлов фраз через PhraseManager.loadPhrases:
+ * из текстовых файлов и из бинарного пакета PhrasePack
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadPhrasesBenchmark {
+    
+    @Param({"1000", "100000", "500000"})
+    int lines;
+    
+    String winFile;
+    String loseFile;
+    String packFile;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path win = BenchmarkCorpus.write("win", lines);
+        Path lose = BenchmarkCorpus.write("lose", lines);
+        winFile = win.toString();
+        loseFile = lose.toString();
+        Path pack = Files.createTempFile("tiltovozik-pack", ".tpack");
+        pack.toFile().deleteOnExit();
+        PhrasePackCompiler.compile(winFile, loseFile, pack);
+        packFile = pack.toString();
+    }
+    
+    @Benchmark
+    public PhraseManager loadPhrases() throws IOException {
+        PhraseManager manager = new PhraseManager();
+        manager.loadPhrases(winFile, loseFile);
+        return manager;
+    }
+    
+    @Benchmark
+    public PhraseManager loadPack() throws IOException {
+        PhraseManager manager = new PhraseManager();
+        manager.loadPhrases(packFile, winFile, loseFile);
+        return manager;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Бенчмарк выбора фразы PhraseManager.getRandomPhrase для разных размеров корпуса и истории.
+ * Варианты shared* используют общую историю менеджера, варианты session* - историю на поток
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PhraseSelectionBenchmark {
+    
+    @Param({"100", "10000", "50000"})
+    int corpusSize;
+    
+    @Param({"5", "50"})
+    int historySize;
+    
+    PhraseManager manager;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        manager = BenchmarkCorpus.load(corpusSize, historySize);
+    }
+    
+    @State(Scope.Thread)
+    public static class Session {
+        PhraseHistory history;
+        Random random;
+        
+        @Setup(Level.Trial)
+        public void setUp(PhraseSelectionBenchmark benchmark) {
+            history = benchmark.manager.newHistory();
+            random = new Random(42);
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public String sharedHistory(Session session) {
+        return manager.getRandomPhrase(true, "Игрок", session.random);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public String sharedHistoryContended(Session session) {
+        return manager.getRandomPhrase(true, "Игрок", session.random);
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public String sessionHistory(Session session) {
+        return manager.getRandomPhrase(session.history, true, "Игрок", session.random);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public String sessionHistoryParallel(Session session) {
+        return manager.getRandomPhrase(session.history, true, "Игрок", session.random);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Бенчмарк подготовки стилей, которую TiltTrackerApp выполняет при каждом нажатии.
+ * inlineStyles воспроизводит прежнюю сборку inline-CSS строк и служит точкой отсчета,
+ * pseudoClasses - текущий выбор заранее созданных псевдоклассов.
+ * Применение стилей к узлам требует запущенного JavaFX и здесь не измеряется
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StyleBenchmark {
+    
+    private final TiltState[] states = TiltState.values();
+    
+    @Benchmark
+    @Threads(1)
+    public void inlineStyles(Blackhole blackhole) {
+        for (TiltState state : states) {
+            String style = "-fx-accent: " + state.getColor() + ";";
+            if (state.isExtreme()) {
+                style += " -fx-effect: dropshadow(gaussian, rgba(231, 76, 60, 0.3), 15, 0, 0, 0);";
+            }
+            blackhole.consume(style + " -fx-border-color: #95a5a6; -fx-border-width: 1px; -fx-border-radius: 4px;");
+            blackhole.consume("-fx-font-size: 22px; -fx-font-weight: bold; -fx-text-fill: " + state.getColor() + ";");
+        }
+    }
+    
+    @Benchmark
+    @Threads(1)
+    public void pseudoClasses(Blackhole blackhole) {
+        for (TiltState state : states) {
+            blackhole.consume(TiltTrackerApp.statePseudoClass(state));
+        }
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void pseudoClassesParallel(Blackhole blackhole) {
+        pseudoClasses(blackhole);
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Бенчмарк пакетной классификации TiltClassifier на больших массивах значений
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiltClassifierBenchmark {
+    
+    @Param({"10000", "10000000"})
+    int size;
+    
+    int[] values;
+    byte[] ordinals;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(TiltEngine.MIN_TILT, TiltEngine.MAX_TILT + 1);
+        }
+        ordinals = new byte[size];
+    }
+    
+    @Benchmark
+    public long[] classify() {
+        return TiltClassifier.classify(values, ordinals);
+    }
+    
+    @Benchmark
+    public long[] histogramOnly() {
+        return TiltClassifier.classify(values, null);
+    }
+    
+    @Benchmark
+    public long[] classifyParallel() {
+        return TiltClassifier.classifyParallel(values, ordinals);
+    }
+}
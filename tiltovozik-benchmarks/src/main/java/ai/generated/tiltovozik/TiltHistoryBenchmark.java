@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Бенчмарк прореживания истории тильта до ширины графика: вся сессия и увеличенный фрагмент
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiltHistoryBenchmark {
+    private static final int WIDTH = 800;
+    
+    @Param({"100000", "1000000"})
+    public int points;
+    
+    private final TiltHistory history = new TiltHistory();
+    private final long[] times = new long[WIDTH];
+    private final int[] tilts = new int[WIDTH];
+    
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        int tilt = 0;
+        for (int i = 0; i < points; i++) {
+            tilt = Math.max(TiltEngine.MIN_TILT, Math.min(TiltEngine.MAX_TILT, tilt + random.nextInt(-5, 6)));
+            history.add(i * 1000L, tilt);
+        }
+    }
+    
+    @Benchmark
+    public int downsampleAll() {
+        return history.downsample(0, Long.MAX_VALUE, WIDTH, times, tilts);
+    }
+    
+    @Benchmark
+    public int downsampleZoomed() {
+        long middle = points / 2 * 1000L;
+        return history.downsample(middle, middle + 10_000_000L, WIDTH, times, tilts);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Бенчмарк классификации TiltState.fromValue по всему диапазону -200..200
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TiltStateBenchmark {
+    
+    @Benchmark
+    @Threads(1)
+    public void fromValueFullRange(Blackhole blackhole) {
+        classifyRange(blackhole);
+    }
+    
+    @Benchmark
+    @Threads(4)
+    public void fromValueFullRangeParallel(Blackhole blackhole) {
+        classifyRange(blackhole);
+    }
+    
+    private static void classifyRange(Blackhole blackhole) {
+        for (int value = TiltEngine.MIN_TILT; value <= TiltEngine.MAX_TILT; value++) {
+            blackhole.consume(TiltState.fromValue(value));
+        }
+    }
+}
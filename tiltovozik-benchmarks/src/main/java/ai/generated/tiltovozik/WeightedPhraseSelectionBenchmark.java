@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Бенчмарк взвешенного выбора фразы по состоянию тильта через таблицы псевдонимов.
+ * В ярости выбор идет среди десятой части корпуса с повышенным весом, в нейтральном состоянии - среди всего корпуса
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WeightedPhraseSelectionBenchmark {
+    
+    @Param({"100", "10000", "50000"})
+    int corpusSize;
+    
+    @Param({"5", "50"})
+    int historySize;
+    
+    PhraseManager manager;
+    PhraseHistory history;
+    PhraseContext rage;
+    PhraseContext neutral;
+    Random random;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        manager = BenchmarkCorpus.load(corpusSize, historySize, true);
+        history = manager.newHistory();
+        rage = new PhraseContext().setUsername("Игрок").setTilt(120);
+        neutral = new PhraseContext().setUsername("Игрок").setTilt(0);
+        random = new Random(42);
+    }
+    
+    @Benchmark
+    public String rage() {
+        return manager.getRandomPhrase(history, false, rage, random);
+    }
+    
+    @Benchmark
+    public String neutral() {
+        return manager.getRandomPhrase(history, false, neutral, random);
+    }
+}
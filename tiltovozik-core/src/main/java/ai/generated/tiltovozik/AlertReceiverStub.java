@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Заглушка получателя вебхука оповещений для проверки доставки без внешних сервисов.
+ * Слушает POST /alerts на 127.0.0.1, печатает полученные оповещения и может отвечать
+ * с задержкой, чтобы проверить поведение при медленном получателе
+ */
+public final class AlertReceiverStub implements Closeable {
+    public static final int DEFAULT_PORT = 8766;
+    
+    private final HttpServer server;
+    private final long delayMillis;
+    private final boolean quiet;
+    private final AtomicLong received = new AtomicLong();
+    
+    /**
+     * @param port порт на 127.0.0.1, 0 - выбрать свободный
+     * @param delayMillis задержка ответа на каждое оповещение
+     * @param quiet true, чтобы не печатать оповещения
+     */
+    public AlertReceiverStub(int port, long delayMillis, boolean quiet) throws IOException {
+        this.delayMillis = delayMillis;
+        this.quiet = quiet;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "tiltovozik-alert-stub");
+            thread.setDaemon(true);
+            return thread;
+        }));
+        server.createContext("/alerts", this::handleAlert);
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long delayMillis = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        AlertReceiverStub stub = new AlertReceiverStub(port, delayMillis, false);
+        stub.start();
+        Thread.currentThread().join();
+    }
+    
+    public void start() {
+        server.start();
+        System.out.println("Заглушка оповещений: http://" + server.getAddress().getHostString()
+                           + ":" + getPort() + "/alerts");
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    /**
+     * Возвращает количество принятых оповещений
+     */
+    public long received() {
+        return received.get();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+    
+    private void handleAlert(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String body;
+            try (InputStream input = exchange.getRequestBody()) {
+                body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            long count = received.incrementAndGet();
+            if (!quiet) {
+                System.out.println("Оповещение " + count + ": " + body);
+            }
+            exchange.sendResponseHeaders(204, -1);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Таблица псевдонимов Воуза для взвешенного выбора за O(1).
+ * Строится один раз за O(n) при загрузке фраз, выбор стоит двух случайных чисел
+ */
+final class AliasTable {
+    private final int[] indices;
+    private final float[] weights;
+    private final double[] probability;
+    private final int[] alias;
+    
+    /**
+     * @param indices индексы фраз, из которых делается выбор
+     * @param weights веса фраз, положительные
+     * @param count количество используемых элементов массивов
+     */
+    AliasTable(int[] indices, float[] weights, int count) {
+        this.indices = Arrays.copyOf(indices, count);
+        this.weights = Arrays.copyOf(weights, count);
+        this.probability = new double[count];
+        this.alias = new int[count];
+        
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            total += weights[i];
+        }
+        // Масштабируем веса так, чтобы средний был равен 1, и раскладываем по двум стекам
+        double[] scaled = new double[count];
+        int[] small = new int[count];
+        int[] large = new int[count];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < count; i++) {
+            scaled[i] = weights[i] * count / total;
+            if (scaled[i] < 1) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Остатки из-за погрешности округления считаются полными корзинами
+        while (largeSize > 0) {
+            probability[large[--largeSize]] = 1;
+        }
+        while (smallSize > 0) {
+            probability[small[--smallSize]] = 1;
+        }
+    }
+    
+    /**
+     * Выбирает индекс фразы с вероятностью, пропорциональной ее весу
+     */
+    int sample(Random random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? indices[column] : indices[alias[column]];
+    }
+    
+    int size() {
+        return indices.length;
+    }
+    
+    int indexAt(int position) {
+        return indices[position];
+    }
+    
+    float weightAt(int position) {
+        return weights[position];
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Исходная модель: победа понижает тильт на случайную величину из одного диапазона, поражение повышает
+ * на величину из другого, остывания нет. По умолчанию диапазоны 1-5 и 2-10
+ */
+public final class ClassicTiltModel implements TiltModel {
+    private static final int DEFAULT_MIN_WIN = 1;
+    private static final int DEFAULT_MAX_WIN = 5;
+    private static final int DEFAULT_MIN_LOSE = 2;
+    private static final int DEFAULT_MAX_LOSE = 10;
+    
+    private final int minWin;
+    private final int maxWin;
+    private final int minLose;
+    private final int maxLose;
+    
+    /**
+     * Победа понижает тильт на 1-5, поражение повышает на 2-10
+     */
+    public ClassicTiltModel() {
+        this(DEFAULT_MIN_WIN, DEFAULT_MAX_WIN, DEFAULT_MIN_LOSE, DEFAULT_MAX_LOSE);
+    }
+    
+    /**
+     * @param minWin наименьшее понижение тильта после победы
+     * @param maxWin наибольшее понижение тильта после победы, включительно
+     * @param minLose наименьшее повышение тильта после поражения
+     * @param maxLose наибольшее повышение тильта после поражения, включительно
+     */
+    public ClassicTiltModel(int minWin, int maxWin, int minLose, int maxLose) {
+        checkRange("победы", minWin, maxWin);
+        checkRange("поражения", minLose, maxLose);
+        this.minWin = minWin;
+        this.maxWin = maxWin;
+        this.minLose = minLose;
+        this.maxLose = maxLose;
+    }
+    
+    private static void checkRange(String result, int min, int max) {
+        if (min < 0 || max < min || max > TiltEngine.MAX_TILT - TiltEngine.MIN_TILT) {
+            throw new IllegalArgumentException("Неверный диапазон " + result + ": " + min + "-" + max);
+        }
+    }
+    
+    @Override
+    public String name() {
+        return "classic";
+    }
+    
+    @Override
+    public int delta(int tilt, boolean isWin, int streak, RandomGenerator random) {
+        return isWin ? -(random.nextInt(maxWin - minWin + 1) + minWin)
+                     : random.nextInt(maxLose - minLose + 1) + minLose;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Модель с остыванием: без матчей тильт экспоненциально стремится к нулю
+ * и уменьшается вдвое за каждый период полураспада.
+ * Остывание вычисляется при чтении по времени последнего события, поэтому простаивающие сессии не стоят ничего
+ */
+public final class DecayingTiltModel implements TiltModel {
+    private static final long DEFAULT_HALF_LIFE_MILLIS = 20 * 60 * 1000;
+    
+    private final TiltModel base;
+    private final double halfLifeMillis;
+    
+    /**
+     * Классическая модель с периодом полураспада 20 минут
+     */
+    public DecayingTiltModel() {
+        this(new ClassicTiltModel());
+    }
+    
+    /**
+     * @param base модель изменения тильта после матча, остывание с периодом по умолчанию
+     */
+    public DecayingTiltModel(TiltModel base) {
+        this(base, DEFAULT_HALF_LIFE_MILLIS);
+    }
+    
+    /**
+     * @param base модель изменения тильта после матча
+     * @param halfLifeMillis время, за которое тильт уменьшается вдвое
+     */
+    public DecayingTiltModel(TiltModel base, long halfLifeMillis) {
+        if (halfLifeMillis <= 0) {
+            throw new IllegalArgumentException("Период полураспада должен быть положительным: " + halfLifeMillis);
+        }
+        this.base = base;
+        this.halfLifeMillis = halfLifeMillis;
+    }
+    
+    @Override
+    public String name() {
+        return "decay";
+    }
+    
+    @Override
+    public int delta(int tilt, boolean isWin, int streak, RandomGenerator random) {
+        return base.delta(tilt, isWin, streak, random);
+    }
+    
+    @Override
+    public boolean decays() {
+        return true;
+    }
+    
+    @Override
+    public double decay(double tilt, long idleMillis) {
+        double decayed = base.decay(tilt, idleMillis);
+        if (decayed == 0 || idleMillis <= 0) {
+            return decayed;
+        }
+        return decayed * Math.pow(0.5, idleMillis / halfLifeMillis);
+    }
+}
@@ -0,0 +1,371 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал событий матчей: файл только на дозапись, отображенный в память.
+ * Каждое событие - запись фиксированного размера с контрольной суммой,
+ * записи фиксируются на диск группами. Оборванная при сбое запись отбрасывается
+ * при открытии и не затрагивает предыдущие. Дозапись только копирует запись в отображение:
+ * сброс на диск выполняет commit вне монитора журнала, поэтому добавляющий поток не ждет fsync.
+ * Писать в журнал может только один процесс, файл блокируется при открытии
+ */
+public final class EventJournal implements Closeable {
+    public static final byte WIN = 1;
+    public static final byte LOSE = 2;
+    public static final byte RESET = 3;
+    
+    static final int RECORD_SIZE = 32;
+    static final int HEADER_SIZE = 64;
+    private static final int MAGIC = 0x544C544A; // "TLTJ"
+    private static final int VERSION = 1;
+    private static final int SEGMENT_SIZE = 8 << 20;
+    private static final int RECORDS_PER_SEGMENT = SEGMENT_SIZE / RECORD_SIZE;
+    private static final int COMMITTED_OFFSET = 16;
+    private static final int EPOCH_OFFSET = 24;
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> segments = new CopyOnWriteArrayList<>();
+    private final MappedByteBuffer header;
+    private final CRC32C crc = new CRC32C();
+    private final byte[] checksumScratch = new byte[RECORD_SIZE - 4];
+    // Фиксации идут по одной, но не держат монитор журнала, под которым идет дозапись
+    private final Object commitLock = new Object();
+    private final int batchSize;
+    private final boolean readOnly;
+    private int epoch;
+    private volatile long size;
+    private volatile long committed;
+    private volatile Runnable batchListener;
+    private boolean commitRequested;
+    
+    private EventJournal(FileChannel channel, int batchSize, boolean readOnly) throws IOException {
+        this.channel = channel;
+        this.batchSize = batchSize;
+        this.readOnly = readOnly;
+        if (readOnly && channel.size() < HEADER_SIZE) {
+            throw new IOException("Файл не является журналом Tiltovozik");
+        }
+        this.header = map(0, HEADER_SIZE);
+        if (readOnly) {
+            if (header.getInt(0) != MAGIC || header.getInt(8) != RECORD_SIZE) {
+                throw new IOException("Файл не является журналом Tiltovozik");
+            }
+            openCommitted();
+            return;
+        }
+        if (header.getInt(0) == 0) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, RECORD_SIZE);
+            header.putLong(COMMITTED_OFFSET, 0);
+            header.force();
+        } else if (header.getInt(0) != MAGIC || header.getInt(8) != RECORD_SIZE) {
+            throw new IOException("Файл не является журналом Tiltovozik");
+        }
+        recover();
+    }
+    
+    /**
+     * Открывает журнал или создает новый с групповой фиксацией по умолчанию
+     */
+    public static EventJournal open(Path file) throws IOException {
+        return open(file, DEFAULT_BATCH_SIZE);
+    }
+    
+    /**
+     * Открывает журнал или создает новый
+     * @param file путь к файлу журнала
+     * @param batchSize сколько записей накапливается до автоматической фиксации на диск
+     */
+    public static EventJournal open(Path file, int batchSize) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            // Два писателя дописывали бы под одними и теми же номерами и затирали записи друг друга
+            FileLock lock;
+            try {
+                lock = channel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                throw new IOException("Журнал " + file + " уже открыт другим процессом,"
+                                      + " укажите для второго экземпляра другой каталог данных");
+            }
+            return new EventJournal(channel, Math.max(1, batchSize), false);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Открывает журнал только для чтения, например для экспорта, пока журнал ведет другой процесс.
+     * Видны только зафиксированные на момент открытия записи, файл не изменяется
+     * @param file путь к файлу журнала
+     */
+    public static EventJournal openReadOnly(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new EventJournal(channel, 1, true);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Добавляет событие в журнал
+     * @param timestamp время события в миллисекундах
+     * @param sessionId номер сессии
+     * @param type тип события: WIN, LOSE или RESET
+     * @param delta изменение тильта
+     * @param tiltAfter значение тильта после события
+     * @param phraseIndex индекс показанной фразы или -1
+     * @return порядковый номер события в журнале. Запись еще не на диске: она фиксируется commit,
+     *         который по накоплении пачки запрашивается у получателя из setBatchListener
+     */
+    public synchronized long append(long timestamp, int sessionId, byte type, int delta, int tiltAfter, int phraseIndex) {
+        if (readOnly) {
+            throw new IllegalStateException("Журнал открыт только для чтения");
+        }
+        long sequence = size;
+        MappedByteBuffer segment = segmentFor(sequence);
+        int offset = recordOffset(sequence);
+        segment.putLong(offset, timestamp);
+        segment.putInt(offset + 8, sessionId);
+        segment.put(offset + 12, type);
+        segment.put(offset + 13, (byte) 0);
+        segment.putShort(offset + 14, (short) delta);
+        segment.putInt(offset + 16, tiltAfter);
+        segment.putInt(offset + 20, phraseIndex);
+        segment.putInt(offset + 24, epoch);
+        segment.putInt(offset + 28, checksum(segment, offset));
+        size = sequence + 1;
+        if (size - committed >= batchSize && !commitRequested) {
+            Runnable listener = batchListener;
+            if (listener != null) {
+                commitRequested = true;
+                listener.run();
+            }
+        }
+        return sequence;
+    }
+    
+    /**
+     * Задает получателя сигнала о накопленной пачке. Он вызывается под монитором журнала
+     * в добавляющем потоке и должен только передать commit в фоновый поток
+     * @param listener получатель или null, тогда пачки фиксируются только явными вызовами commit
+     */
+    public void setBatchListener(Runnable listener) {
+        this.batchListener = listener;
+    }
+    
+    /**
+     * Сбрасывает на диск все добавленные, но еще не зафиксированные записи
+     * @return количество зафиксированных событий: все события с меньшими номерами переживут сбой
+     */
+    public long commit() {
+        if (readOnly) {
+            return committed;
+        }
+        synchronized (commitLock) {
+            long from;
+            long to;
+            synchronized (this) {
+                from = committed;
+                to = size;
+                commitRequested = false;
+            }
+            if (from == to) {
+                return to;
+            }
+            // Сначала данные, затем счетчик в заголовке: заголовок никогда не опережает записи.
+            // Записи до to уже скопированы в отображение, дозапись продолжается за ними
+            for (long sequence = from; sequence < to; ) {
+                long segmentEnd = Math.min(to, (sequence / RECORDS_PER_SEGMENT + 1) * RECORDS_PER_SEGMENT);
+                segmentAt(sequence).force(recordOffset(sequence), (int) (segmentEnd - sequence) * RECORD_SIZE);
+                sequence = segmentEnd;
+            }
+            writeHeader(to);
+            return to;
+        }
+    }
+    
+    /**
+     * Возвращает количество событий в журнале
+     */
+    public long size() {
+        return size;
+    }
+    
+    /**
+     * Последовательно передает события начиная с указанного номера
+     * @param fromSequence номер первого события
+     * @param consumer получатель событий
+     */
+    public void replay(long fromSequence, EventConsumer consumer) {
+        replay(fromSequence, size, consumer);
+    }
+    
+    /**
+     * Последовательно передает события из диапазона номеров
+     * @param fromSequence номер первого события
+     * @param toSequence номер, перед которым воспроизведение останавливается, не больше size()
+     * @param consumer получатель событий
+     */
+    public void replay(long fromSequence, long toSequence, EventConsumer consumer) {
+        long end = Math.min(toSequence, size);
+        for (long sequence = Math.max(0, fromSequence); sequence < end; sequence++) {
+            MappedByteBuffer segment = segmentAt(sequence);
+            int offset = recordOffset(sequence);
+            consumer.accept(sequence,
+                    segment.getLong(offset),
+                    segment.getInt(offset + 8),
+                    segment.get(offset + 12),
+                    segment.getShort(offset + 14),
+                    segment.getInt(offset + 16),
+                    segment.getInt(offset + 20));
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (commitLock) {
+            commit();
+            channel.close();
+        }
+    }
+    
+    private void recover() throws IOException {
+        long headerCount = header.getLong(COMMITTED_OFFSET);
+        long fileRecords = Math.max(0, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        int segmentCount = (int) ((fileRecords + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(map(HEADER_SIZE + (long) i * SEGMENT_SIZE, SEGMENT_SIZE));
+        }
+        
+        // Незафиксированные записи могли появиться только в последнем сеансе работы с журналом,
+        // поэтому принимаются записи с эпохой из заголовка и верной контрольной суммой.
+        // Старые записи, оставшиеся за оборванной после прошлого сбоя, имеют меньшую эпоху
+        int headerEpoch = header.getInt(EPOCH_OFFSET);
+        long sequence = Math.min(headerCount, fileRecords);
+        while (sequence < fileRecords) {
+            MappedByteBuffer segment = segmentAt(sequence);
+            int offset = recordOffset(sequence);
+            if (segment.get(offset + 12) == 0 || segment.getInt(offset + 24) != headerEpoch
+                    || segment.getInt(offset + 28) != checksum(segment, offset)) {
+                break;
+            }
+            sequence++;
+        }
+        size = sequence;
+        committed = Math.min(headerCount, sequence);
+        epoch = headerEpoch + 1;
+        commit();
+        // Новая эпоха сохраняется в заголовке при каждом открытии, даже если дописывать нечего
+        writeHeader(size);
+    }
+    
+    private void openCommitted() throws IOException {
+        long fileRecords = Math.max(0, (channel.size() - HEADER_SIZE) / RECORD_SIZE);
+        size = Math.min(header.getLong(COMMITTED_OFFSET), fileRecords);
+        committed = size;
+        int segmentCount = (int) ((size + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+        for (int i = 0; i < segmentCount; i++) {
+            long position = HEADER_SIZE + (long) i * SEGMENT_SIZE;
+            segments.add(map(position, (int) Math.min(SEGMENT_SIZE, channel.size() - position)));
+        }
+    }
+    
+    private void writeHeader(long count) {
+        header.putLong(COMMITTED_OFFSET, count);
+        header.putInt(EPOCH_OFFSET, epoch);
+        header.force();
+        committed = count;
+    }
+    
+    private MappedByteBuffer segmentFor(long sequence) {
+        int index = (int) (sequence / RECORDS_PER_SEGMENT);
+        while (segments.size() <= index) {
+            try {
+                segments.add(map(HEADER_SIZE + (long) segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+            } catch (IOException e) {
+                throw new JournalException("Не удалось расширить журнал", e);
+            }
+        }
+        return segments.get(index);
+    }
+    
+    private MappedByteBuffer segmentAt(long sequence) {
+        return segments.get((int) (sequence / RECORDS_PER_SEGMENT));
+    }
+    
+    private MappedByteBuffer map(long position, int length) throws IOException {
+        MappedByteBuffer buffer = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE,
+                                              position, length);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        return buffer;
+    }
+    
+    private int checksum(MappedByteBuffer segment, int offset) {
+        segment.get(offset, checksumScratch);
+        crc.reset();
+        crc.update(checksumScratch, 0, checksumScratch.length);
+        return (int) crc.getValue();
+    }
+    
+    private static int recordOffset(long sequence) {
+        return (int) (sequence % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+    }
+    
+    /**
+     * Получатель событий при воспроизведении журнала
+     */
+    @FunctionalInterface
+    public interface EventConsumer {
+        void accept(long sequence, long timestamp, int sessionId, byte type, int delta, int tiltAfter, int phraseIndex);
+    }
+    
+    /**
+     * Ошибка ввода-вывода журнала, возникшая при дозаписи
+     */
+    public static final class JournalException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        
+        JournalException(String message, IOException cause) {
+            super(message, cause);
+        }
+    }
+}
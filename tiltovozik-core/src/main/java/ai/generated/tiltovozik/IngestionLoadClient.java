@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный клиент-заглушка для IngestionServer.
+ * Запуск: java -cp tiltovozik.jar ai.generated.tiltovozik.IngestionLoadClient [порт] [событий] [потоков] [в пачке] [сессий]
+ */
+public final class IngestionLoadClient {
+    
+    private IngestionLoadClient() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : IngestionServer.DEFAULT_PORT;
+        int events = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int batch = args.length > 3 ? Integer.parseInt(args[3]) : 100;
+        int sessions = args.length > 4 ? Integer.parseInt(args[4]) : 1;
+        
+        // Сервер понимает только HTTP/1.1: без этого клиент каждый раз пытается перейти на HTTP/2
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = URI.create("http://127.0.0.1:" + port + "/results");
+        AtomicLong sent = new AtomicLong();
+        AtomicLong delivered = new AtomicLong();
+        AtomicLong maxLatencyNanos = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> tasks = new ArrayList<>();
+        long started = System.nanoTime();
+        
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = new SplittableRandom(t);
+            tasks.add(executor.submit(() -> {
+                StringBuilder body = new StringBuilder(batch * 12);
+                while (sent.getAndAdd(batch) < events) {
+                    body.setLength(0);
+                    for (int i = 0; i < batch; i++) {
+                        body.append(random.nextBoolean() ? "win " : "lose ").append(random.nextInt(sessions)).append('\n');
+                    }
+                    HttpRequest request = HttpRequest.newBuilder(uri)
+                        .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                        .build();
+                    long requestStarted = System.nanoTime();
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    maxLatencyNanos.accumulateAndGet(System.nanoTime() - requestStarted, Math::max);
+                    if (response.statusCode() != 202) {
+                        throw new IllegalStateException("Сервер ответил " + response.statusCode() + ": " + response.body());
+                    }
+                    delivered.addAndGet(batch);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> task : tasks) {
+            task.get();
+        }
+        executor.shutdown();
+        
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("Отправлено событий: %d за %.2f с (%.0f событий/с), максимальная задержка запроса %.1f мс%n",
+                          delivered.get(), seconds, delivered.get() / seconds, maxLatencyNanos.get() / 1e6);
+    }
+}
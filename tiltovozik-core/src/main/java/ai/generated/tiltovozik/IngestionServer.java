@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Локальный HTTP-сервер приема результатов матчей от игровых интеграций.
+ * Слушает только loopback-интерфейс. Формат запроса:
+ * POST /results, в теле по одному результату на строку - "win" или "lose",
+ * после результата через пробел можно указать номер сессии (по умолчанию 0)
+ */
+public final class IngestionServer implements Closeable {
+    public static final int DEFAULT_PORT = 8765;
+    private static final int MAX_BODY_BYTES = 1 << 20;
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MatchListener listener;
+    
+    /**
+     * Включает TCP_NODELAY для HTTP-серверов JDK, если -Dsun.net.httpserver.nodelay не задан явно.
+     * Заголовки и тело ответа пишутся отдельно: с алгоритмом Нейгла каждый запрос ждет отложенного ACK.
+     * Свойство действует на весь процесс и читается при создании первого сервера,
+     * поэтому его включают точки входа в main, а не сам сервер
+     */
+    public static void preferNoDelay() {
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+    }
+    
+    /**
+     * @param port порт на 127.0.0.1, 0 - выбрать свободный
+     * @param threads количество потоков обработки запросов
+     * @param listener получатель результатов
+     */
+    public IngestionServer(int port, int threads, MatchListener listener) throws IOException {
+        this.listener = listener;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "tiltovozik-ingest-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/results", this::handleResults);
+    }
+    
+    /**
+     * Добавляет обработчик запросов по пути на том же порту и в тех же потоках, что прием результатов.
+     * Вызывается до start
+     */
+    public void addHandler(String path, HttpHandler handler) {
+        server.createContext(path, handler);
+    }
+    
+    /**
+     * Запускает прием запросов
+     */
+    public void start() {
+        server.start();
+        System.out.println("Прием результатов: http://" + server.getAddress().getHostString()
+                           + ":" + getPort() + "/results");
+    }
+    
+    /**
+     * Возвращает фактический порт сервера
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+    
+    private void handleResults(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "Используйте POST");
+                return;
+            }
+            byte[] body;
+            try (InputStream input = exchange.getRequestBody()) {
+                body = input.readNBytes(MAX_BODY_BYTES + 1);
+            }
+            if (body.length > MAX_BODY_BYTES) {
+                respond(exchange, 413, "Слишком большой запрос");
+                return;
+            }
+            // Сначала проверяем весь запрос, чтобы ошибочный не был принят частично
+            if (parse(body, null) < 0) {
+                respond(exchange, 400, "Ожидается \"win\" или \"lose\" [номер сессии] на каждой строке");
+                return;
+            }
+            respond(exchange, 202, Integer.toString(parse(body, listener)));
+        }
+    }
+    
+    /**
+     * Разбирает тело запроса без создания строк и передает результаты получателю
+     * @param body тело запроса
+     * @param target получатель результатов или null, если нужна только проверка формата
+     * @return количество результатов или -1 при ошибке формата
+     */
+    private static int parse(byte[] body, MatchListener target) {
+        int accepted = 0;
+        int position = 0;
+        while (position < body.length) {
+            int end = position;
+            while (end < body.length && body[end] != '\n') {
+                end++;
+            }
+            int lineEnd = end > position && body[end - 1] == '\r' ? end - 1 : end;
+            if (lineEnd > position) {
+                int space = position;
+                while (space < lineEnd && body[space] != ' ') {
+                    space++;
+                }
+                boolean isWin;
+                if (matches(body, position, space, "win")) {
+                    isWin = true;
+                } else if (matches(body, position, space, "lose")) {
+                    isWin = false;
+                } else {
+                    return -1;
+                }
+                int sessionId = 0;
+                for (int i = space + 1; i < lineEnd; i++) {
+                    int digit = body[i] - '0';
+                    if (digit < 0 || digit > 9 || sessionId > (Integer.MAX_VALUE - digit) / 10) {
+                        return -1;
+                    }
+                    sessionId = sessionId * 10 + digit;
+                }
+                if (target != null) {
+                    target.onResult(sessionId, isWin);
+                }
+                accepted++;
+            }
+            position = end + 1;
+        }
+        return accepted;
+    }
+    
+    private static boolean matches(byte[] body, int from, int to, String word) {
+        if (to - from != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (body[from + i] != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    static void respond(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Потоковый экспорт журнала событий в CSV, JSON Lines или колоночный файл.
+ * События читаются из журнала по одному и кодируются прямо в буфер фиксированного размера,
+ * который сбрасывается в FileChannel, поэтому память не зависит от длины истории.
+ * Файл пишется под временным именем и появляется под итоговым только после успешного экспорта.
+ * Столбец phrase заполняется по журнальному индексу из набора фраз, загруженного на момент экспорта,
+ * и содержит шаблон фразы без подстановок, а не показанный игроку текст. Журнал не хранит версию набора,
+ * поэтому после перезагрузки, перекомпиляции пакета или смены языка и темы тот же индекс может указывать
+ * на другую фразу: столбец заполняется по возможности, надежен только phrase_index
+ */
+public final class JournalExporter {
+    private static final int BUFFER_SIZE = 256 << 10;
+    private static final int PROGRESS_INTERVAL = 1 << 16;
+    private static final int ROW_GROUP_SIZE = 1 << 16;
+    static final int COLUMNAR_MAGIC = 0x544C5443; // "TLTC"
+    static final int COLUMNAR_VERSION = 1;
+    private static final String[] RESULT_NAMES = {"", "win", "lose", "reset"};
+    private static final String CSV_HEADER = "sequence,timestamp,time,session,result,delta,tilt,state,phrase_index,phrase\n";
+    
+    /**
+     * Формат файла экспорта
+     */
+    public enum Format {
+        CSV("csv"),
+        // Один JSON-объект на строку: файл читается потоково и дописывается без перестроения
+        JSON_LINES("jsonl"),
+        // Группы строк по 65536 событий, внутри группы значения каждого столбца лежат подряд
+        COLUMNAR("tcol");
+        
+        private final String extension;
+        
+        Format(String extension) {
+            this.extension = extension;
+        }
+        
+        public String getExtension() {
+            return extension;
+        }
+        
+        /**
+         * Определяет формат по расширению файла, по умолчанию CSV
+         */
+        public static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            for (Format format : values()) {
+                if (name.endsWith("." + format.extension)) {
+                    return format;
+                }
+            }
+            return CSV;
+        }
+    }
+    
+    /**
+     * Получатель прогресса экспорта, вызывается в потоке экспорта
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(long exported, long total);
+    }
+    
+    private final EventJournal journal;
+    private final PhraseCorpus corpus;
+    
+    /**
+     * @param journal журнал событий
+     * @param corpus набор фраз, по которому индексы переводятся в шаблоны фраз, или null, чтобы
+     *               экспортировать только индексы. Должен совпадать с набором, действовавшим при записи
+     *               событий, иначе столбец phrase будет содержать другие фразы
+     */
+    public JournalExporter(EventJournal journal, PhraseCorpus corpus) {
+        this.journal = journal;
+        this.corpus = corpus;
+    }
+    
+    /**
+     * Экспортирует все события, записанные к началу экспорта, в текущем потоке
+     * @param file итоговый файл
+     * @param format формат файла
+     * @param listener получатель прогресса или null
+     * @return количество экспортированных событий
+     */
+    public long export(Path file, Format format, ProgressListener listener) throws IOException {
+        return export(file, format, listener, () -> false);
+    }
+    
+    /**
+     * Запускает экспорт в отдельном фоновом потоке.
+     * Отмена возвращенного future останавливает экспорт и удаляет незаконченный файл
+     * @param file итоговый файл
+     * @param format формат файла
+     * @param listener получатель прогресса или null, вызывается в потоке экспорта
+     * @return future с количеством экспортированных событий
+     */
+    public CompletableFuture<Long> exportAsync(Path file, Format format, ProgressListener listener) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        Thread thread = new Thread(() -> {
+            try {
+                result.complete(export(file, format, listener, result::isCancelled));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }, "tiltovozik-export");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+        return result;
+    }
+    
+    private long export(Path file, Format format, ProgressListener listener, BooleanSupplier cancelled) throws IOException {
+        long started = System.nanoTime();
+        long total = journal.size();
+        Path partial = file.resolveSibling(file.getFileName() + ".part");
+        RowWriter writer = format == Format.COLUMNAR ? new ColumnarWriter() : new TextWriter(format == Format.JSON_LINES);
+        
+        try (Output output = new Output(partial)) {
+            writer.begin(output);
+            long[] exported = new long[1];
+            try {
+                journal.replay(0, (sequence, timestamp, sessionId, type, delta, tiltAfter, phraseIndex) -> {
+                    if (sequence >= total) return;
+                    try {
+                        writer.row(output, sequence, timestamp, sessionId, type, delta, tiltAfter, phraseIndex);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++exported[0] % PROGRESS_INTERVAL == 0) {
+                        if (cancelled.getAsBoolean()) {
+                            throw new CancellationException("Экспорт отменен");
+                        }
+                        if (listener != null) {
+                            listener.onProgress(exported[0], total);
+                        }
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.end(output);
+            output.flush();
+            if (listener != null) {
+                listener.onProgress(exported[0], total);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        System.out.printf("Экспортировано событий: %d в %s, %.1f мс%n", total, file, (System.nanoTime() - started) / 1e6);
+        return total;
+    }
+    
+    private String phrase(byte type, int phraseIndex) {
+        if (corpus == null || phraseIndex < 0 || (type != EventJournal.WIN && type != EventJournal.LOSE)) {
+            return null;
+        }
+        boolean isWin = type == EventJournal.WIN;
+        // Индекс относится к набору на момент события, а журнал не хранит версию набора: после смены набора
+        // индекс может указывать на другую фразу, обнаружить это можно только при выходе за границы
+        return phraseIndex < corpus.size(isWin) ? corpus.get(isWin, phraseIndex) : null;
+    }
+    
+    private abstract static class RowWriter {
+        abstract void begin(Output output) throws IOException;
+        
+        abstract void row(Output output, long sequence, long timestamp, int sessionId, byte type,
+                          int delta, int tiltAfter, int phraseIndex) throws IOException;
+        
+        abstract void end(Output output) throws IOException;
+    }
+    
+    private final class TextWriter extends RowWriter {
+        private final boolean json;
+        
+        TextWriter(boolean json) {
+            this.json = json;
+        }
+        
+        @Override
+        void begin(Output output) throws IOException {
+            if (!json) {
+                output.ascii(CSV_HEADER);
+            }
+        }
+        
+        @Override
+        void row(Output output, long sequence, long timestamp, int sessionId, byte type,
+                 int delta, int tiltAfter, int phraseIndex) throws IOException {
+            String result = type > 0 && type < RESULT_NAMES.length ? RESULT_NAMES[type] : "unknown";
+            String state = TiltState.fromValue(tiltAfter).name();
+            String phrase = phrase(type, phraseIndex);
+            if (json) {
+                output.ascii("{\"sequence\":").decimal(sequence)
+                    .ascii(",\"timestamp\":").decimal(timestamp)
+                    .ascii(",\"time\":\"").time(timestamp)
+                    .ascii("\",\"session\":").decimal(sessionId)
+                    .ascii(",\"result\":\"").ascii(result)
+                    .ascii("\",\"delta\":").decimal(delta)
+                    .ascii(",\"tilt\":").decimal(tiltAfter)
+                    .ascii(",\"state\":\"").ascii(state)
+                    .ascii("\",\"phraseIndex\":").decimal(phraseIndex)
+                    .ascii(",\"phrase\":");
+                if (phrase == null) {
+                    output.ascii("null");
+                } else {
+                    output.ascii("\"").text(phrase, true).ascii("\"");
+                }
+                output.ascii("}\n");
+            } else {
+                output.decimal(sequence).ascii(",").decimal(timestamp).ascii(",").time(timestamp)
+                    .ascii(",").decimal(sessionId).ascii(",").ascii(result)
+                    .ascii(",").decimal(delta).ascii(",").decimal(tiltAfter).ascii(",").ascii(state)
+                    .ascii(",").decimal(phraseIndex).ascii(",");
+                if (phrase != null) {
+                    output.ascii("\"").text(phrase, false).ascii("\"");
+                }
+                output.ascii("\n");
+            }
+        }
+        
+        @Override
+        void end(Output output) {
+        }
+    }
+    
+    /**
+     * Колоночный формат, little-endian. Заголовок: магическое число, версия, количество столбцов
+     * и для каждого столбца длина имени, имя в ASCII и ширина значения в байтах.
+     * Затем группы: количество строк, номер первого события и значения столбцов подряд.
+     * В конце: количество групп, количество событий и магическое число.
+     * Текст фраз не сохраняется, только индекс
+     */
+    private static final class ColumnarWriter extends RowWriter {
+        private static final String[] NAMES = {"timestamp", "session", "result", "delta", "tilt", "state", "phrase_index"};
+        private static final byte[] WIDTHS = {8, 4, 1, 2, 4, 1, 4};
+        
+        private final long[] timestamps = new long[ROW_GROUP_SIZE];
+        private final int[] sessions = new int[ROW_GROUP_SIZE];
+        private final byte[] types = new byte[ROW_GROUP_SIZE];
+        private final short[] deltas = new short[ROW_GROUP_SIZE];
+        private final int[] tilts = new int[ROW_GROUP_SIZE];
+        private final byte[] states = new byte[ROW_GROUP_SIZE];
+        private final int[] phrases = new int[ROW_GROUP_SIZE];
+        private int count;
+        private long firstSequence;
+        private int groups;
+        private long rows;
+        
+        @Override
+        void begin(Output output) throws IOException {
+            output.ensure(12);
+            output.buffer.putInt(COLUMNAR_MAGIC).putInt(COLUMNAR_VERSION).putInt(NAMES.length);
+            for (int i = 0; i < NAMES.length; i++) {
+                output.ensure(2 + NAMES[i].length());
+                output.buffer.put((byte) NAMES[i].length());
+                output.ascii(NAMES[i]);
+                output.buffer.put(WIDTHS[i]);
+            }
+        }
+        
+        @Override
+        void row(Output output, long sequence, long timestamp, int sessionId, byte type,
+                 int delta, int tiltAfter, int phraseIndex) throws IOException {
+            if (count == 0) {
+                firstSequence = sequence;
+            }
+            timestamps[count] = timestamp;
+            sessions[count] = sessionId;
+            types[count] = type;
+            deltas[count] = (short) delta;
+            tilts[count] = tiltAfter;
+            states[count] = (byte) TiltState.ordinalOf(tiltAfter);
+            phrases[count] = phraseIndex;
+            if (++count == ROW_GROUP_SIZE) {
+                writeGroup(output);
+            }
+        }
+        
+        @Override
+        void end(Output output) throws IOException {
+            if (count > 0) {
+                writeGroup(output);
+            }
+            output.ensure(16);
+            output.buffer.putInt(groups).putLong(rows).putInt(COLUMNAR_MAGIC);
+        }
+        
+        private void writeGroup(Output output) throws IOException {
+            ByteBuffer buffer = output.buffer;
+            output.ensure(12);
+            buffer.putInt(count).putLong(firstSequence);
+            for (int i = 0; i < count; i++) {
+                output.ensure(8);
+                buffer.putLong(timestamps[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                output.ensure(4);
+                buffer.putInt(sessions[i]);
+            }
+            output.bytes(types, count);
+            for (int i = 0; i < count; i++) {
+                output.ensure(2);
+                buffer.putShort(deltas[i]);
+            }
+            for (int i = 0; i < count; i++) {
+                output.ensure(4);
+                buffer.putInt(tilts[i]);
+            }
+            output.bytes(states, count);
+            for (int i = 0; i < count; i++) {
+                output.ensure(4);
+                buffer.putInt(phrases[i]);
+            }
+            groups++;
+            rows += count;
+            count = 0;
+        }
+    }
+    
+    /**
+     * Буфер записи поверх FileChannel. Числа и время кодируются прямо в буфер без промежуточных строк
+     */
+    private static final class Output implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private final byte[] digits = new byte[20];
+        private long cachedDay = Long.MIN_VALUE;
+        private String cachedDate;
+        
+        Output(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        
+        void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+        
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        
+        Output ascii(String value) throws IOException {
+            ensure(value.length());
+            for (int i = 0; i < value.length(); i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+            return this;
+        }
+        
+        Output decimal(long value) throws IOException {
+            ensure(20);
+            if (value < 0) {
+                buffer.put((byte) '-');
+            }
+            // Цифры набираются с конца; отрицательные значения обрабатываются без перехода через abs
+            int position = digits.length;
+            do {
+                digits[--position] = (byte) ('0' + Math.abs(value % 10));
+                value /= 10;
+            } while (value != 0);
+            buffer.put(digits, position, digits.length - position);
+            return this;
+        }
+        
+        /**
+         * Записывает время в формате ISO-8601 UTC с миллисекундами
+         */
+        Output time(long timestamp) throws IOException {
+            long day = Math.floorDiv(timestamp, 86_400_000L);
+            if (day != cachedDay) {
+                cachedDay = day;
+                cachedDate = LocalDate.ofEpochDay(day) + "T";
+            }
+            int millis = (int) Math.floorMod(timestamp, 86_400_000L);
+            ascii(cachedDate);
+            ensure(13);
+            twoDigits(millis / 3_600_000);
+            buffer.put((byte) ':');
+            twoDigits(millis / 60_000 % 60);
+            buffer.put((byte) ':');
+            twoDigits(millis / 1000 % 60);
+            buffer.put((byte) '.');
+            buffer.put((byte) ('0' + millis % 1000 / 100));
+            twoDigits(millis % 100);
+            buffer.put((byte) 'Z');
+            return this;
+        }
+        
+        private void twoDigits(int value) {
+            buffer.put((byte) ('0' + value / 10));
+            buffer.put((byte) ('0' + value % 10));
+        }
+        
+        /**
+         * Записывает текст в UTF-8 с экранированием для строки JSON или поля CSV в кавычках
+         */
+        Output text(String value, boolean json) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                ensure(6);
+                char c = value.charAt(i);
+                if (c == '"') {
+                    buffer.put(json ? (byte) '\\' : (byte) '"').put((byte) '"');
+                } else if (c == '\\' && json) {
+                    buffer.put((byte) '\\').put((byte) '\\');
+                } else if (c < 0x20) {
+                    if (json) {
+                        buffer.put((byte) '\\').put((byte) 'u').put((byte) '0').put((byte) '0');
+                        buffer.put((byte) Character.forDigit(c >> 4, 16)).put((byte) Character.forDigit(c & 0xF, 16));
+                    } else {
+                        buffer.put((byte) ' ');
+                    }
+                } else if (c < 0x80) {
+                    buffer.put((byte) c);
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                          .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer.put((byte) '?');
+                } else {
+                    buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F)).put((byte) (0x80 | c & 0x3F));
+                }
+            }
+            return this;
+        }
+        
+        void bytes(byte[] values, int count) throws IOException {
+            for (int from = 0; from < count; ) {
+                ensure(1);
+                int length = Math.min(count - from, buffer.remaining());
+                buffer.put(values, from, length);
+                from += length;
+            }
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек без блокировок с логарифмическими корзинами.
+ * Каждая степень двойки делится на 8 корзин, поэтому погрешность перцентилей не больше 12.5%
+ * при фиксированных 4 КБ памяти на любой диапазон от наносекунд до часов
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - 4) * SUB_BUCKETS;
+    
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+    
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * Учитывает одно измерение. Можно вызывать из любого потока
+     * @param nanos длительность в наносекундах, отрицательные значения считаются нулем
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+    
+    /**
+     * Возвращает количество измерений
+     */
+    public long count() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+    
+    /**
+     * Возвращает наибольшее измерение в наносекундах
+     */
+    public long max() {
+        return max.get();
+    }
+    
+    /**
+     * Возвращает перцентиль в наносекундах: верхнюю границу корзины, в которую он попал
+     * @param percentile от 0 до 100
+     * @return значение перцентиля или 0, если измерений нет
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+    
+    /**
+     * Обнуляет гистограмму. Измерения, идущие одновременно со сбросом, могут частично сохраниться
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+    
+    /**
+     * Возвращает строку со сводкой: количество, p50, p90, p99, p99.9 и максимум в миллисекундах
+     */
+    public String summary() {
+        return String.format("%-18s n=%-8d p50=%.3f p90=%.3f p99=%.3f p99.9=%.3f max=%.3f мс",
+                             name, count(), percentile(50) / 1e6, percentile(90) / 1e6,
+                             percentile(99) / 1e6, percentile(99.9) / 1e6, max() / 1e6);
+    }
+    
+    static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR_LIMIT + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+    
+    static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_LIMIT) {
+            return bucket;
+        }
+        int exponent = (bucket - LINEAR_LIMIT) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        int subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lower + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Записывает оповещения строками в поток вывода или файл
+ */
+public final class LogAlertSink implements AlertSink {
+    private final PrintStream out;
+    private final boolean owned;
+    
+    /**
+     * @param out поток вывода, например System.out; при закрытии получателя не закрывается
+     */
+    public LogAlertSink(PrintStream out) {
+        this(out, false);
+    }
+    
+    private LogAlertSink(PrintStream out, boolean owned) {
+        this.out = out;
+        this.owned = owned;
+    }
+    
+    /**
+     * Открывает файл журнала оповещений на дозапись
+     */
+    public static LogAlertSink open(Path file) throws IOException {
+        return new LogAlertSink(new PrintStream(new FileOutputStream(file.toFile(), true), true, StandardCharsets.UTF_8), true);
+    }
+    
+    @Override
+    public String name() {
+        return "журнал";
+    }
+    
+    @Override
+    public void deliver(TiltAlert alert) {
+        out.println("Оповещение: " + alert);
+    }
+    
+    @Override
+    public void close() {
+        if (owned) {
+            out.close();
+        }
+    }
+}
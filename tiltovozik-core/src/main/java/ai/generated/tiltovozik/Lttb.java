@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+/**
+ * Прореживание временного ряда алгоритмом Largest-Triangle-Three-Buckets.
+ * Из каждой корзины остается точка, образующая наибольший треугольник с уже выбранной
+ * точкой предыдущей корзины и средним следующей, поэтому пики и провалы графика сохраняются
+ */
+final class Lttb {
+    
+    private Lttb() {
+    }
+    
+    /**
+     * Прореживает точки [from, to) до threshold штук
+     * @param x моменты времени по неубыванию
+     * @param y значения
+     * @param outX массив для моментов выбранных точек длиной не меньше threshold
+     * @param outY массив для значений выбранных точек длиной не меньше threshold
+     * @return количество выбранных точек
+     */
+    static int downsample(long[] x, int[] y, int from, int to, int threshold, long[] outX, int[] outY) {
+        int count = to - from;
+        if (threshold >= count) {
+            System.arraycopy(x, from, outX, 0, count);
+            System.arraycopy(y, from, outY, 0, count);
+            return count;
+        }
+        if (threshold < 3) {
+            // Меньше трех точек LTTB не выбирает: оставляем крайние
+            if (threshold <= 0) {
+                return 0;
+            }
+            outX[0] = x[from];
+            outY[0] = y[from];
+            if (threshold == 1) {
+                return 1;
+            }
+            outX[1] = x[to - 1];
+            outY[1] = y[to - 1];
+            return 2;
+        }
+        
+        // Координаты считаются относительно первой точки, чтобы не терять точность в double
+        long origin = x[from];
+        double every = (double) (count - 2) / (threshold - 2);
+        int selected = from;
+        int out = 0;
+        outX[out] = x[from];
+        outY[out++] = y[from];
+        
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int averageFrom = from + (int) ((bucket + 1) * every) + 1;
+            int averageTo = Math.min(from + (int) ((bucket + 2) * every) + 1, to);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = averageFrom; i < averageTo; i++) {
+                averageX += x[i] - origin;
+                averageY += y[i];
+            }
+            int averageCount = averageTo - averageFrom;
+            averageX /= averageCount;
+            averageY /= averageCount;
+            
+            int rangeFrom = from + (int) (bucket * every) + 1;
+            int rangeTo = from + (int) ((bucket + 1) * every) + 1;
+            double selectedX = x[selected] - origin;
+            double selectedY = y[selected];
+            double maxArea = -1;
+            int next = rangeFrom;
+            for (int i = rangeFrom; i < rangeTo; i++) {
+                double area = Math.abs((selectedX - averageX) * (y[i] - selectedY)
+                                       - (selectedX - (x[i] - origin)) * (averageY - selectedY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            outX[out] = x[next];
+            outY[out++] = y[next];
+            selected = next;
+        }
+        
+        outX[out] = x[to - 1];
+        outY[out++] = y[to - 1];
+        return out;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+/**
+ * Значения плейсхолдеров фраз для одной сессии.
+ * Объект переиспользуется между вызовами и не предназначен для доступа из нескольких потоков
+ */
+public final class PhraseContext {
+    private final StringBuilder builder = new StringBuilder(128);
+    private String username = "Игрок";
+    private int tilt;
+    private TiltState state = TiltState.NEUTRAL;
+    private int streak;
+    private int winRate;
+    private int lastPhraseIndex = -1;
+    
+    public PhraseContext setUsername(String username) {
+        this.username = username;
+        return this;
+    }
+    
+    /**
+     * Устанавливает значение тильта и соответствующее ему состояние
+     */
+    public PhraseContext setTilt(int tilt) {
+        this.tilt = tilt;
+        this.state = TiltState.fromValue(tilt);
+        return this;
+    }
+    
+    /**
+     * Устанавливает длину текущей серии одинаковых результатов
+     */
+    public PhraseContext setStreak(int streak) {
+        this.streak = streak;
+        return this;
+    }
+    
+    /**
+     * Устанавливает процент побед от 0 до 100
+     */
+    public PhraseContext setWinRate(int winRate) {
+        this.winRate = winRate;
+        return this;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public int getTilt() {
+        return tilt;
+    }
+    
+    public TiltState getState() {
+        return state;
+    }
+    
+    public int getStreak() {
+        return streak;
+    }
+    
+    public int getWinRate() {
+        return winRate;
+    }
+    
+    /**
+     * Возвращает индекс последней выбранной для этого контекста фразы или -1
+     */
+    public int getLastPhraseIndex() {
+        return lastPhraseIndex;
+    }
+    
+    void setLastPhraseIndex(int lastPhraseIndex) {
+        this.lastPhraseIndex = lastPhraseIndex;
+    }
+    
+    /**
+     * Возвращает очищенный буфер для сборки фразы
+     */
+    StringBuilder builder() {
+        builder.setLength(0);
+        return builder;
+    }
+}
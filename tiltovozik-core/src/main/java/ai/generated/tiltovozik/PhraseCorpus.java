@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.List;
+
+/**
+ * Неизменяемый набор фраз побед и поражений, скомпилированных в шаблоны.
+ * Фразы из текстовых файлов компилируются при загрузке, фразы из пакета PhrasePack -
+ * при первом выборе. Если фразы размечены состояниями тильта и весами (см. PhraseTag),
+ * для каждого состояния при загрузке строится таблица псевдонимов для взвешенного выбора.
+ * Один экземпляр может безопасно разделяться между любым числом сессий и потоков
+ */
+public final class PhraseCorpus {
+    private static final int STATE_COUNT = TiltState.values().length;
+    // Грубые оценки размера в куче для учета памяти в PhraseCorpusRegistry
+    private static final int TEMPLATE_OVERHEAD = 96;
+    private static final int ALIAS_ENTRY_BYTES = 20;
+    
+    private final PhraseTemplate[] winPhrases;
+    private final PhraseTemplate[] losePhrases;
+    private final PhrasePack pack;
+    // Для неразмеченного набора null: выбор равномерный, как раньше
+    private final AliasTable[] winTables;
+    private final AliasTable[] loseTables;
+    private final long weight;
+    
+    public PhraseCorpus(List<String> winPhrases, List<String> losePhrases) {
+        PhraseTag[] winTags = parse(winPhrases);
+        PhraseTag[] loseTags = parse(losePhrases);
+        this.winPhrases = compile(winTags);
+        this.losePhrases = compile(loseTags);
+        this.pack = null;
+        
+        boolean weighted = isTagged(winTags) || isTagged(loseTags);
+        this.winTables = weighted ? buildTables(masks(winTags), weights(winTags)) : null;
+        this.loseTables = weighted ? buildTables(masks(loseTags), weights(loseTags)) : null;
+        this.weight = textWeight(winTags) + textWeight(loseTags) + tablesWeight(winTables) + tablesWeight(loseTables);
+    }
+    
+    /**
+     * Создает набор фраз поверх пакета: фразы декодируются и компилируются только при выборе,
+     * разметка читается из пакета без декодирования текста
+     * @param pack открытый пакет фраз
+     */
+    public PhraseCorpus(PhrasePack pack) {
+        this.winPhrases = new PhraseTemplate[pack.size(true)];
+        this.losePhrases = new PhraseTemplate[pack.size(false)];
+        this.pack = pack;
+        
+        boolean weighted = pack.isTagged();
+        this.winTables = weighted ? buildTables(pack.stateMasks(true), pack.weights(true)) : null;
+        this.loseTables = weighted ? buildTables(pack.stateMasks(false), pack.weights(false)) : null;
+        // Каждый символ UTF-16 в тексте и литералах шаблона занимает не больше байта UTF-8 в пакете,
+        // поэтому оценка сверху учитывает и шаблоны, которые скомпилируются позже
+        long templates = (long) TEMPLATE_OVERHEAD * (winPhrases.length + losePhrases.length) + 4L * pack.byteSize();
+        this.weight = pack.byteSize() + templates + tablesWeight(winTables) + tablesWeight(loseTables);
+    }
+    
+    /**
+     * Возвращает количество фраз указанного типа
+     * @param isWin true для победных фраз, false для фраз поражения
+     */
+    public int size(boolean isWin) {
+        return isWin ? winPhrases.length : losePhrases.length;
+    }
+    
+    /**
+     * Проверяет, размечены ли фразы состояниями или весами
+     */
+    public boolean isWeighted() {
+        return winTables != null;
+    }
+    
+    /**
+     * Возвращает оценку занимаемой памяти в байтах: текст фраз, шаблоны и таблицы выбора
+     */
+    long weightBytes() {
+        return weight;
+    }
+    
+    /**
+     * Возвращает фразу по индексу без подстановки имени игрока
+     * @param isWin true для победных фраз, false для фраз поражения
+     * @param index индекс фразы от 0 до size(isWin) - 1
+     */
+    public String get(boolean isWin, int index) {
+        return template(isWin, index).getText();
+    }
+    
+    /**
+     * Возвращает скомпилированный шаблон фразы по индексу
+     * @param isWin true для победных фраз, false для фраз поражения
+     * @param index индекс фразы от 0 до size(isWin) - 1
+     */
+    public PhraseTemplate template(boolean isWin, int index) {
+        PhraseTemplate[] templates = isWin ? winPhrases : losePhrases;
+        PhraseTemplate template = templates[index];
+        if (template == null) {
+            // Гонка безопасна: шаблон неизменяем, в худшем случае фраза скомпилируется дважды
+            template = PhraseTemplate.compile(pack.phrase(isWin, index));
+            templates[index] = template;
+        }
+        return template;
+    }
+    
+    /**
+     * Возвращает таблицу взвешенного выбора среди фраз, подходящих состоянию.
+     * Если для состояния нет ни одной фразы, выбор идет среди всех фраз по их весам
+     * @param state состояние тильта или null, чтобы выбирать среди всех фраз
+     * @return таблица или null, если набор не размечен или фраз нужного типа нет
+     */
+    AliasTable table(boolean isWin, TiltState state) {
+        AliasTable[] tables = isWin ? winTables : loseTables;
+        if (tables == null) {
+            return null;
+        }
+        AliasTable table = state != null ? tables[state.ordinal()] : null;
+        return table != null ? table : tables[STATE_COUNT];
+    }
+    
+    private static PhraseTag[] parse(List<String> lines) {
+        PhraseTag[] tags = new PhraseTag[lines.size()];
+        for (int i = 0; i < tags.length; i++) {
+            tags[i] = PhraseTag.parse(lines.get(i));
+        }
+        return tags;
+    }
+    
+    private static PhraseTemplate[] compile(PhraseTag[] tags) {
+        PhraseTemplate[] templates = new PhraseTemplate[tags.length];
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = PhraseTemplate.compile(tags[i].getText());
+        }
+        return templates;
+    }
+    
+    private static long textWeight(PhraseTag[] tags) {
+        long weight = 0;
+        for (PhraseTag tag : tags) {
+            // Текст шаблона и его литералы хранятся в UTF-16
+            weight += TEMPLATE_OVERHEAD + 4L * tag.getText().length();
+        }
+        return weight;
+    }
+    
+    private static long tablesWeight(AliasTable[] tables) {
+        long weight = 0;
+        if (tables != null) {
+            for (AliasTable table : tables) {
+                weight += table != null ? (long) ALIAS_ENTRY_BYTES * table.size() : 0;
+            }
+        }
+        return weight;
+    }
+    
+    private static boolean isTagged(PhraseTag[] tags) {
+        for (PhraseTag tag : tags) {
+            if (tag.isTagged()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int[] masks(PhraseTag[] tags) {
+        int[] masks = new int[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            masks[i] = tags[i].getStateMask();
+        }
+        return masks;
+    }
+    
+    private static float[] weights(PhraseTag[] tags) {
+        float[] weights = new float[tags.length];
+        for (int i = 0; i < tags.length; i++) {
+            weights[i] = tags[i].getWeight();
+        }
+        return weights;
+    }
+    
+    /**
+     * Строит таблицы для каждого состояния и последнюю - для всех фраз
+     */
+    private static AliasTable[] buildTables(int[] masks, float[] weights) {
+        AliasTable[] tables = new AliasTable[STATE_COUNT + 1];
+        int[] indices = new int[masks.length];
+        float[] selected = new float[masks.length];
+        for (int state = 0; state <= STATE_COUNT; state++) {
+            int bit = state < STATE_COUNT ? 1 << state : PhraseTag.ALL_STATES;
+            int count = 0;
+            for (int i = 0; i < masks.length; i++) {
+                if ((masks[i] & bit) != 0) {
+                    indices[count] = i;
+                    selected[count++] = weights[i];
+                }
+            }
+            tables[state] = count > 0 ? new AliasTable(indices, selected, count) : null;
+        }
+        return tables;
+    }
+}
@@ -0,0 +1,319 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Реестр наборов фраз по языку и теме с ленивой загрузкой.
+ * Наборы хранятся в LRU-кэше, ограниченном оценкой занимаемой памяти, а не числом наборов,
+ * поэтому память не растет от количества настроенных языков и тем.
+ * Одновременные первые запросы одного набора ждут одну загрузку.
+ * Набор языка ru и темы seasonal лежит в каталоге phrases/ru/seasonal/ рядом с приложением
+ * или в ресурсах, набор по умолчанию - файлы win_phrases.txt и lose_phrases.txt.
+ * Если набора нет, используется следующий по цепочке: ru/seasonal, затем ru, затем набор по умолчанию
+ */
+public final class PhraseCorpusRegistry {
+    public static final long DEFAULT_MAX_BYTES = 32L << 20;
+    
+    private static final String LOCALES_DIRECTORY = "phrases/";
+    private static final String WIN_PHRASES_FILE = "win_phrases.txt";
+    private static final String LOSE_PHRASES_FILE = "lose_phrases.txt";
+    private static final String PHRASE_PACK_FILE = "phrases.tpack";
+    private static final Pattern NAME = Pattern.compile("[a-z0-9_-]{1,32}");
+    // Отсутствующий набор тоже кэшируется, чтобы цепочка не проверяла файлы при каждом запросе
+    private static final long ABSENT_WEIGHT = 64;
+    private static final Key DEFAULT_KEY = new Key(null, null);
+    private static final PhraseCorpus EMPTY = new PhraseCorpus(List.of(), List.of());
+    
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Key, CompletableFuture<PhraseCorpus>> loading = new ConcurrentHashMap<>();
+    private long weight;
+    private long hits;
+    private long loads;
+    private long evictions;
+    
+    public PhraseCorpusRegistry() {
+        this(DEFAULT_MAX_BYTES);
+    }
+    
+    /**
+     * @param maxBytes ограничение суммарной оценки памяти загруженных наборов
+     */
+    public PhraseCorpusRegistry(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Размер кэша фраз должен быть положительным: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+    }
+    
+    /**
+     * Возвращает набор для языка и темы или ближайший по цепочке замены
+     * @param locale код языка, например ru, или null
+     * @param theme тема, например seasonal, или null
+     * @return набор фраз, в худшем случае пустой
+     */
+    public PhraseCorpus resolve(String locale, String theme) {
+        Key key = Key.of(locale, theme);
+        while (true) {
+            PhraseCorpus corpus = get(key);
+            if (corpus != null) {
+                return corpus;
+            }
+            if (key.equals(DEFAULT_KEY)) {
+                return EMPTY;
+            }
+            key = key.parent();
+        }
+    }
+    
+    /**
+     * Возвращает файлы наборов цепочки замены для языка и темы, кроме набора по умолчанию,
+     * например чтобы PhraseReloader следил и за ними
+     */
+    public static List<Path> sourceFiles(String locale, String theme) {
+        List<Path> files = new ArrayList<>();
+        for (Key key = Key.of(locale, theme); !key.equals(DEFAULT_KEY); key = key.parent()) {
+            for (String name : new String[] {PHRASE_PACK_FILE, WIN_PHRASES_FILE, LOSE_PHRASES_FILE}) {
+                files.add(Paths.get(key.directory() + name));
+            }
+        }
+        return files;
+    }
+    
+    /**
+     * Возвращает набор именно для этого языка и темы, без цепочки замены
+     * @return набор фраз или null, если его нет
+     */
+    public PhraseCorpus get(String locale, String theme) {
+        return get(Key.of(locale, theme));
+    }
+    
+    private PhraseCorpus get(Key key) {
+        Entry entry = cached(key);
+        if (entry != null) {
+            return entry.corpus;
+        }
+        
+        CompletableFuture<PhraseCorpus> created = new CompletableFuture<>();
+        CompletableFuture<PhraseCorpus> pending = loading.putIfAbsent(key, created);
+        if (pending != null) {
+            return pending.join();
+        }
+        try {
+            // Между промахом и putIfAbsent другой поток мог успеть загрузить набор и убрать свою запись
+            entry = cached(key);
+            PhraseCorpus corpus = entry != null ? entry.corpus : load(key);
+            if (entry == null) {
+                store(key, corpus);
+            }
+            created.complete(corpus);
+            return corpus;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, created);
+        }
+    }
+    
+    private synchronized Entry cached(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits++;
+        }
+        return entry;
+    }
+    
+    /**
+     * Загружает набор в потоке первого запроса: пакет фраз, если он есть и не старше текстовых файлов,
+     * иначе текстовые файлы
+     * @return набор или null, если для ключа нет фраз
+     */
+    private PhraseCorpus load(Key key) {
+        TiltEvents.PhraseLoad event = new TiltEvents.PhraseLoad();
+        event.begin();
+        String directory = key.directory();
+        try {
+            Path pack = Paths.get(directory + PHRASE_PACK_FILE);
+            PhraseCorpus corpus = null;
+            if (Files.isRegularFile(pack)) {
+                if (PhraseManager.textNewerThanPack(pack, directory + WIN_PHRASES_FILE, directory + LOSE_PHRASES_FILE)) {
+                    System.out.println("Текстовые файлы набора фраз " + key + " новее пакета, загружаются они");
+                } else {
+                    corpus = new PhraseCorpus(PhrasePack.open(pack));
+                }
+            }
+            if (corpus == null || corpus.size(true) == 0 || corpus.size(false) == 0) {
+                corpus = new PhraseCorpus(PhraseManager.loadPhrasesFromFile(directory + WIN_PHRASES_FILE),
+                                          PhraseManager.loadPhrasesFromFile(directory + LOSE_PHRASES_FILE));
+            }
+            if (corpus.size(true) == 0 || corpus.size(false) == 0) {
+                if (corpus.size(true) + corpus.size(false) > 0) {
+                    System.err.println("В наборе фраз " + key + " нет побед или поражений, используется следующий по цепочке");
+                }
+                return null;
+            }
+            PhraseManager.commitLoad(event, directory.isEmpty() ? "default" : directory,
+                                     corpus.size(true), corpus.size(false));
+            return corpus;
+        } catch (IOException e) {
+            // Ошибка тоже запоминается как отсутствие набора до invalidateAll, иначе каждый запрос читал бы диск
+            System.err.println("Ошибка загрузки набора фраз " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    private synchronized void store(Key key, PhraseCorpus corpus) {
+        loads++;
+        long entryWeight = corpus != null ? corpus.weightBytes() : ABSENT_WEIGHT;
+        if (entryWeight > maxBytes) {
+            // Набор больше всего кэша отдается вызывающему без кэширования: граница памяти важнее
+            System.err.printf("Набор фраз %s (%d КБ) больше кэша фраз (%d КБ) и не кэшируется%n",
+                              key, entryWeight >> 10, maxBytes >> 10);
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(corpus, entryWeight));
+        weight += entryWeight - (previous != null ? previous.weight : 0);
+        
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxBytes && eldest.hasNext()) {
+            Map.Entry<Key, Entry> candidate = eldest.next();
+            if (candidate.getKey().equals(key)) {
+                continue;
+            }
+            weight -= candidate.getValue().weight;
+            eldest.remove();
+            evictions++;
+        }
+    }
+    
+    /**
+     * Выгружает все наборы, следующие запросы загрузят их заново с диска
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+    
+    /**
+     * Возвращает суммарную оценку памяти загруженных наборов в байтах
+     */
+    public synchronized long weightBytes() {
+        return weight;
+    }
+    
+    /**
+     * Возвращает количество наборов в кэше, включая запомненные отсутствующие
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Возвращает строку со статистикой кэша
+     */
+    public synchronized String summary() {
+        return String.format("наборов %d, %d из %d КБ, попаданий %d, загрузок %d, вытеснено %d",
+                             entries.size(), weight >> 10, maxBytes >> 10, hits, loads, evictions);
+    }
+    
+    private static final class Entry {
+        final PhraseCorpus corpus;
+        final long weight;
+        
+        Entry(PhraseCorpus corpus, long weight) {
+            this.corpus = corpus;
+            this.weight = weight;
+        }
+    }
+    
+    private static final class Key {
+        final String locale;
+        final String theme;
+        
+        Key(String locale, String theme) {
+            this.locale = locale;
+            this.theme = theme;
+        }
+        
+        /**
+         * Нормализует язык и тему. Имена проверяются, потому что из них строится путь к файлам
+         */
+        static Key of(String locale, String theme) {
+            locale = normalize(locale);
+            theme = normalize(theme);
+            // Тема без языка не имеет своего каталога: используется набор по умолчанию
+            return locale == null ? DEFAULT_KEY : new Key(locale, theme);
+        }
+        
+        private static String normalize(String name) {
+            if (name == null || name.isBlank()) {
+                return null;
+            }
+            String normalized = name.trim().toLowerCase(Locale.ROOT);
+            if (!NAME.matcher(normalized).matches()) {
+                throw new IllegalArgumentException("Некорректное имя языка или темы фраз: " + name);
+            }
+            return normalized;
+        }
+        
+        Key parent() {
+            return theme != null ? new Key(locale, null) : DEFAULT_KEY;
+        }
+        
+        String directory() {
+            if (locale == null) {
+                return "";
+            }
+            return LOCALES_DIRECTORY + locale + "/" + (theme != null ? theme + "/" : "");
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key
+                && Objects.equals(locale, ((Key) other).locale)
+                && Objects.equals(theme, ((Key) other).theme);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(locale, theme);
+        }
+        
+        @Override
+        public String toString() {
+            return locale == null ? "default" : locale + (theme != null ? "/" + theme : "");
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.Random;
+
+/**
+ * История недавно показанных фраз одной сессии.
+ * Хранит индексы фраз в кольцевых буферах фиксированного размера,
+ * поэтому выбор фразы не выделяет память и работает за O(historySize).
+ * Для размеченного набора фраз выбор взвешенный: недавние фразы отбрасываются
+ * ограниченное число раз, после чего выбор делается точно среди оставшихся
+ */
+public final class PhraseHistory {
+    private static final int MAX_REJECTIONS = 8;
+    
+    private final RecentIndices winRecent;
+    private final RecentIndices loseRecent;
+    private PhraseCorpus corpus;
+    
+    public PhraseHistory(int historySize) {
+        if (historySize < 0) {
+            throw new IllegalArgumentException("Размер истории не может быть отрицательным: " + historySize);
+        }
+        this.winRecent = new RecentIndices(historySize);
+        this.loseRecent = new RecentIndices(historySize);
+    }
+    
+    /**
+     * Выбирает индекс случайной фразы, не совпадающей с недавно показанными
+     * @param corpus набор фраз, из которого делается выбор
+     * @param isWin true для победной фразы, false для фразы поражения
+     * @param random экземпляр Random для генерации случайных чисел
+     * @return индекс фразы или -1, если фраз нужного типа нет
+     */
+    public int nextIndex(PhraseCorpus corpus, boolean isWin, Random random) {
+        return nextIndex(corpus, isWin, null, random);
+    }
+    
+    /**
+     * Выбирает индекс случайной фразы для состояния тильта, не совпадающей с недавно показанными.
+     * Недавняя фраза повторяется, только если других подходящих состоянию фраз нет
+     * @param corpus набор фраз, из которого делается выбор
+     * @param isWin true для победной фразы, false для фразы поражения
+     * @param state состояние тильта игрока или null, если оно не учитывается
+     * @param random экземпляр Random для генерации случайных чисел
+     * @return индекс фразы или -1, если фраз нужного типа нет
+     */
+    public synchronized int nextIndex(PhraseCorpus corpus, boolean isWin, TiltState state, Random random) {
+        // История относится к конкретному набору фраз: после перезагрузки индексы недействительны
+        if (this.corpus != corpus) {
+            winRecent.clear();
+            loseRecent.clear();
+            this.corpus = corpus;
+        }
+        RecentIndices recent = isWin ? winRecent : loseRecent;
+        AliasTable table = corpus.table(isWin, state);
+        if (table == null) {
+            return recent.next(corpus.size(isWin), random);
+        }
+        return recent.nextWeighted(table, random);
+    }
+    
+    /**
+     * Очищает историю показанных фраз
+     */
+    public synchronized void clear() {
+        winRecent.clear();
+        loseRecent.clear();
+    }
+    
+    /**
+     * Кольцевой буфер последних выбранных индексов
+     */
+    private static final class RecentIndices {
+        private final int[] ring;
+        private final int[] sorted;
+        private int head;
+        private int count;
+        
+        RecentIndices(int capacity) {
+            this.ring = new int[capacity];
+            this.sorted = new int[capacity];
+        }
+        
+        int next(int phraseCount, Random random) {
+            if (phraseCount == 0) {
+                return -1;
+            }
+            
+            // Если все фразы уже были недавно, сбрасываем историю
+            int available = phraseCount - count;
+            if (available <= 0) {
+                clear();
+                available = phraseCount;
+            }
+            
+            // Выбираем r-ю по счету доступную фразу, перешагивая через недавние индексы
+            int index = random.nextInt(available);
+            int excluded = sortRecent();
+            for (int i = 0; i < excluded && sorted[i] <= index; i++) {
+                index++;
+            }
+            
+            remember(index);
+            return index;
+        }
+        
+        int nextWeighted(AliasTable table, Random random) {
+            // Обычно первая же выборка за O(1) не попадает в историю
+            for (int attempt = 0; attempt < MAX_REJECTIONS; attempt++) {
+                int index = table.sample(random);
+                if (!contains(index)) {
+                    remember(index);
+                    return index;
+                }
+            }
+            
+            // Недавние фразы перевешивают: точный выбор среди остальных за O(n)
+            double available = 0;
+            for (int i = 0; i < table.size(); i++) {
+                if (!contains(table.indexAt(i))) {
+                    available += table.weightAt(i);
+                }
+            }
+            if (available == 0) {
+                // Все подходящие фразы недавние: как и при равномерном выборе, сбрасываем историю
+                clear();
+                int index = table.sample(random);
+                remember(index);
+                return index;
+            }
+            double target = random.nextDouble() * available;
+            int index = -1;
+            for (int i = 0; i < table.size(); i++) {
+                int candidate = table.indexAt(i);
+                if (!contains(candidate)) {
+                    index = candidate;
+                    target -= table.weightAt(i);
+                    if (target < 0) {
+                        break;
+                    }
+                }
+            }
+            remember(index);
+            return index;
+        }
+        
+        void clear() {
+            head = 0;
+            count = 0;
+        }
+        
+        private boolean contains(int index) {
+            for (int i = 0; i < count; i++) {
+                if (ring[i] == index) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private int sortRecent() {
+            for (int i = 0; i < count; i++) {
+                int value = ring[i];
+                int j = i - 1;
+                while (j >= 0 && sorted[j] > value) {
+                    sorted[j + 1] = sorted[j];
+                    j--;
+                }
+                sorted[j + 1] = value;
+            }
+            return count;
+        }
+        
+        private void remember(int index) {
+            if (ring.length == 0) {
+                return;
+            }
+            ring[head] = index;
+            head = (head + 1) % ring.length;
+            if (count < ring.length) {
+                count++;
+            }
+        }
+    }
+}
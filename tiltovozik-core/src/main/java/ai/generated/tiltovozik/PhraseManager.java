@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * Менеджер для загрузки и управления фразами побед и поражений
+ * с защитой от повторного показа одних и тех же фраз подряд.
+ * Набор фраз общий и неизменяемый, история ведется отдельно для каждой сессии
+ */
+public class PhraseManager {
+    private static final int DEFAULT_HISTORY_SIZE = 5;
+    private static final int RENDER_CACHE_SIZE = 4096;
+    
+    private volatile PhraseCorpus corpus = new PhraseCorpus(List.of(), List.of());
+    private final PhraseHistory history;
+    private final PhraseRenderCache renderCache = new PhraseRenderCache(RENDER_CACHE_SIZE);
+    private final int historySize;
+    
+    public PhraseManager() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+    
+    public PhraseManager(int historySize) {
+        this.historySize = historySize;
+        this.history = new PhraseHistory(historySize);
+    }
+    
+    /**
+     * Загружает фразы из файлов
+     * @param winPhrasesFile путь к файлу с победными фразами
+     * @param losePhrasesFile путь к файлу с фразами поражений
+     * @throws IOException если произошла ошибка чтения файлов
+     */
+    public void loadPhrases(String winPhrasesFile, String losePhrasesFile) throws IOException {
+        TiltEvents.PhraseLoad event = new TiltEvents.PhraseLoad();
+        event.begin();
+        List<String> winPhrases = loadPhrasesFromFile(winPhrasesFile);
+        List<String> losePhrases = loadPhrasesFromFile(losePhrasesFile);
+        
+        // Добавляем дефолтные фразы, если файлы пустые
+        if (winPhrases.isEmpty()) {
+            winPhrases.addAll(getDefaultWinPhrases());
+        }
+        if (losePhrases.isEmpty()) {
+            losePhrases.addAll(getDefaultLosePhrases());
+        }
+        
+        // Публикуем готовый набор одной записью: читатели видят либо старый, либо новый корпус
+        corpus = new PhraseCorpus(winPhrases, losePhrases);
+        commitLoad(event, winPhrasesFile + ", " + losePhrasesFile, winPhrases.size(), losePhrases.size());
+        
+        System.out.printf("Загружено фраз: побед - %d, поражений - %d%n", 
+                         winPhrases.size(), losePhrases.size());
+    }
+    
+    /**
+     * Загружает фразы из бинарного пакета, а если его нет или текстовые файлы правили
+     * после его сборки - из текстовых файлов
+     * @param packFile путь к пакету фраз, собранному PhrasePackCompiler
+     * @param winPhrasesFile путь к файлу с победными фразами
+     * @param losePhrasesFile путь к файлу с фразами поражений
+     * @throws IOException если произошла ошибка чтения файлов
+     */
+    public void loadPhrases(String packFile, String winPhrasesFile, String losePhrasesFile) throws IOException {
+        Path pack = Paths.get(packFile);
+        if (Files.isRegularFile(pack) && textNewerThanPack(pack, winPhrasesFile, losePhrasesFile)) {
+            System.out.println("Текстовые файлы фраз новее пакета " + packFile
+                               + ", загружаются они; пересоберите пакет через compile-pack");
+        } else if (Files.isRegularFile(pack)) {
+            TiltEvents.PhraseLoad event = new TiltEvents.PhraseLoad();
+            event.begin();
+            PhraseCorpus packed = new PhraseCorpus(PhrasePack.open(pack));
+            if (packed.size(true) > 0 && packed.size(false) > 0) {
+                corpus = packed;
+                commitLoad(event, packFile, packed.size(true), packed.size(false));
+                System.out.printf("Загружен пакет фраз: побед - %d, поражений - %d%n",
+                                 packed.size(true), packed.size(false));
+                return;
+            }
+            System.err.println("Пакет фраз пуст, используются текстовые файлы: " + packFile);
+        }
+        loadPhrases(winPhrasesFile, losePhrasesFile);
+    }
+    
+    /**
+     * Проверяет, правили ли текстовые файлы после сборки пакета: тогда правки модераторов
+     * важнее устаревшего пакета
+     */
+    static boolean textNewerThanPack(Path pack, String winPhrasesFile, String losePhrasesFile) throws IOException {
+        Path win = Paths.get(winPhrasesFile);
+        Path lose = Paths.get(losePhrasesFile);
+        if (!Files.isRegularFile(win) || !Files.isRegularFile(lose)) {
+            return false;
+        }
+        FileTime packed = Files.getLastModifiedTime(pack);
+        return Files.getLastModifiedTime(win).compareTo(packed) > 0
+            || Files.getLastModifiedTime(lose).compareTo(packed) > 0;
+    }
+    
+    /**
+     * Публикует готовый набор фраз, например полученный из PhraseCorpusRegistry
+     * @param corpus набор фраз
+     */
+    public void setCorpus(PhraseCorpus corpus) {
+        this.corpus = Objects.requireNonNull(corpus);
+    }
+    
+    /**
+     * Получить случайную фразу с защитой от повторений
+     * @param isWin true для победной фразы, false для фразы поражения
+     * @param username имя игрока для подстановки в шаблон
+     * @param random экземпляр Random для генерации случайных чисел
+     * @return отформатированная фраза с именем игрока
+     */
+    public String getRandomPhrase(boolean isWin, String username, Random random) {
+        return getRandomPhrase(history, isWin, username, random);
+    }
+    
+    /**
+     * Получить случайную фразу с защитой от повторений в рамках отдельной сессии
+     * @param sessionHistory история показанных фраз конкретной сессии
+     * @param isWin true для победной фразы, false для фразы поражения
+     * @param username имя игрока для подстановки в шаблон
+     * @param random экземпляр Random для генерации случайных чисел
+     * @return отформатированная фраза с именем игрока
+     */
+    public String getRandomPhrase(PhraseHistory sessionHistory, boolean isWin, String username, Random random) {
+        return selectPhrase(corpus, sessionHistory, isWin, username, null, random);
+    }
+    
+    /**
+     * Получить случайную фразу с подстановкой всех плейсхолдеров из контекста сессии.
+     * Индекс выбранной фразы сохраняется в контексте
+     * @param sessionHistory история показанных фраз конкретной сессии
+     * @param isWin true для победной фразы, false для фразы поражения
+     * @param context значения плейсхолдеров и буфер для сборки фразы
+     * @param random экземпляр Random для генерации случайных чисел
+     * @return отформатированная фраза
+     */
+    public String getRandomPhrase(PhraseHistory sessionHistory, boolean isWin, PhraseContext context, Random random) {
+        return selectPhrase(corpus, sessionHistory, isWin, context.getUsername(), context, random);
+    }
+    
+    /**
+     * Получить случайную фразу из указанного набора, а не из набора менеджера.
+     * Нужен, когда сессии одного менеджера говорят на разных языках: история сессии
+     * хранит индексы, поэтому для одной сессии набор должен оставаться одним и тем же
+     * @param corpus набор фраз сессии, например из PhraseCorpusRegistry
+     * @param sessionHistory история показанных фраз конкретной сессии
+     * @param isWin true для победной фразы, false для фразы поражения
+     * @param context значения плейсхолдеров и буфер для сборки фразы
+     * @param random экземпляр Random для генерации случайных чисел
+     * @return отформатированная фраза
+     */
+    public String getRandomPhrase(PhraseCorpus corpus, PhraseHistory sessionHistory, boolean isWin,
+                                  PhraseContext context, Random random) {
+        return selectPhrase(corpus, sessionHistory, isWin, context.getUsername(), context, random);
+    }
+    
+    private String selectPhrase(PhraseCorpus snapshot, PhraseHistory sessionHistory, boolean isWin, String username,
+                                PhraseContext context, Random random) {
+        long started = Telemetry.start();
+        TiltEvents.PhraseSelection event = new TiltEvents.PhraseSelection();
+        event.begin();
+        
+        int index = sessionHistory.nextIndex(snapshot, isWin, context != null ? context.getState() : null, random);
+        if (context != null) {
+            context.setLastPhraseIndex(index);
+        }
+        String phrase = index < 0
+            ? (isWin ? "Победа!" : "Поражение...")
+            : render(snapshot.template(isWin, index), username, context);
+        
+        Telemetry.record(Telemetry.PHRASE_SELECTION, started);
+        if (event.shouldCommit()) {
+            event.win = isWin;
+            event.index = index;
+            event.corpusSize = snapshot.size(isWin);
+            event.commit();
+        }
+        return phrase;
+    }
+    
+    private String render(PhraseTemplate template, String username, PhraseContext context) {
+        if (template.isUsernameOnly()) {
+            return renderCached(template, username, context);
+        }
+        PhraseContext target = context != null ? context : new PhraseContext().setUsername(username);
+        StringBuilder builder = target.builder();
+        template.render(target, builder);
+        return builder.toString();
+    }
+    
+    static void commitLoad(TiltEvents.PhraseLoad event, String source, int winCount, int loseCount) {
+        if (event.shouldCommit()) {
+            event.source = source;
+            event.winCount = winCount;
+            event.loseCount = loseCount;
+            event.commit();
+        }
+    }
+    
+    private String renderCached(PhraseTemplate template, String username, PhraseContext context) {
+        if (template.isConstant()) {
+            return template.getText();
+        }
+        String rendered = renderCache.get(template, username);
+        if (rendered == null) {
+            PhraseContext target = context != null ? context : new PhraseContext().setUsername(username);
+            StringBuilder builder = target.builder();
+            template.render(target, builder);
+            rendered = builder.toString();
+            renderCache.put(template, username, rendered);
+        }
+        return rendered;
+    }
+    
+    /**
+     * Создает пустую историю для новой сессии с размером истории этого менеджера
+     */
+    public PhraseHistory newHistory() {
+        return new PhraseHistory(historySize);
+    }
+    
+    /**
+     * Возвращает текущий неизменяемый набор фраз
+     */
+    public PhraseCorpus getCorpus() {
+        return corpus;
+    }
+    
+    /**
+     * Очищает историю показанных фраз
+     */
+    public void clearHistory() {
+        history.clear();
+    }
+    
+    /**
+     * Возвращает количество загруженных победных фраз
+     */
+    public int getWinPhrasesCount() {
+        return corpus.size(true);
+    }
+    
+    /**
+     * Возвращает количество загруженных фраз поражений
+     */
+    public int getLosePhrasesCount() {
+        return corpus.size(false);
+    }
+    
+    static List<String> loadPhrasesFromFile(String filename) throws IOException {
+        // Файл рядом с приложением важнее встроенного ресурса: его можно править без перекомпиляции
+        File file = new File(filename);
+        if (file.isFile()) {
+            return readPhrases(new FileInputStream(file));
+        }
+        InputStream inputStream = PhraseManager.class.getClassLoader().getResourceAsStream(filename);
+        return inputStream == null ? new ArrayList<>() : readPhrases(inputStream);
+    }
+    
+    private static List<String> readPhrases(InputStream inputStream) throws IOException {
+        List<String> phrases = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+            new InputStreamReader(inputStream, "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    phrases.add(line.trim());
+                }
+            }
+        }
+        return phrases;
+    }
+    
+    private List<String> getDefaultWinPhrases() {
+        return Arrays.asList(
+            "Так держать, {username}!",
+            "Отличная игра, {username}!"
+        );
+    }
+    
+    private List<String> getDefaultLosePhrases() {
+        return Arrays.asList(
+            "{username}, время для секретного оружия!",
+            "{username}, следующая игра будет лучше!"
+        );
+    }
+}
\ No newline at end of file
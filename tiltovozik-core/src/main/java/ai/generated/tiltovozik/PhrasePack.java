@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Бинарный пакет фраз, отображенный в память.
+ * Формат: заголовок (magic, версия, число победных фраз, число фраз поражений),
+ * таблица смещений из count + 1 значений и блок текста в UTF-8.
+ * Версия 2 между смещениями и текстом хранит разметку фраз: маски состояний (int)
+ * и веса (float), по одному значению на фразу. Фраза декодируется только при обращении к ней
+ */
+public final class PhrasePack {
+    static final int MAGIC = 0x544C5450; // "TLTP"
+    static final int VERSION = 1;
+    static final int TAGGED_VERSION = 2;
+    static final int HEADER_SIZE = 16;
+    
+    private final MappedByteBuffer buffer;
+    private final int winCount;
+    private final int loseCount;
+    private final boolean tagged;
+    private final int blobOffset;
+    
+    private PhrasePack(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || (buffer.getInt(4) != VERSION && buffer.getInt(4) != TAGGED_VERSION)) {
+            throw new IOException("Файл не является пакетом фраз Tiltovozik");
+        }
+        this.tagged = buffer.getInt(4) == TAGGED_VERSION;
+        this.winCount = buffer.getInt(8);
+        this.loseCount = buffer.getInt(12);
+        long total = (long) winCount + loseCount;
+        long blob = HEADER_SIZE + 4L * (total + 1) + (tagged ? 8L * total : 0);
+        if (winCount < 0 || loseCount < 0 || blob > buffer.capacity()
+                || blob + buffer.getInt(HEADER_SIZE + 4 * (winCount + loseCount)) > buffer.capacity()) {
+            throw new IOException("Пакет фраз поврежден");
+        }
+        this.blobOffset = (int) blob;
+    }
+    
+    /**
+     * Открывает пакет фраз только для чтения
+     * @param file путь к файлу пакета
+     */
+    public static PhrasePack open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return new PhrasePack(buffer);
+        }
+    }
+    
+    /**
+     * Возвращает количество фраз указанного типа
+     * @param isWin true для победных фраз, false для фраз поражения
+     */
+    public int size(boolean isWin) {
+        return isWin ? winCount : loseCount;
+    }
+    
+    /**
+     * Возвращает размер отображенного в память файла в байтах
+     */
+    int byteSize() {
+        return buffer.capacity();
+    }
+    
+    /**
+     * Проверяет, хранит ли пакет разметку фраз состояниями и весами
+     */
+    public boolean isTagged() {
+        return tagged;
+    }
+    
+    /**
+     * Возвращает маски состояний фраз указанного типа, см. PhraseTag
+     */
+    int[] stateMasks(boolean isWin) {
+        int count = size(isWin);
+        int[] masks = new int[count];
+        if (!tagged) {
+            Arrays.fill(masks, PhraseTag.ALL_STATES);
+            return masks;
+        }
+        int base = metadataOffset() + 4 * (isWin ? 0 : winCount);
+        for (int i = 0; i < count; i++) {
+            masks[i] = buffer.getInt(base + 4 * i);
+        }
+        return masks;
+    }
+    
+    /**
+     * Возвращает веса фраз указанного типа
+     */
+    float[] weights(boolean isWin) {
+        int count = size(isWin);
+        float[] weights = new float[count];
+        if (!tagged) {
+            Arrays.fill(weights, 1);
+            return weights;
+        }
+        int base = metadataOffset() + 4 * (winCount + loseCount) + 4 * (isWin ? 0 : winCount);
+        for (int i = 0; i < count; i++) {
+            weights[i] = buffer.getFloat(base + 4 * i);
+        }
+        return weights;
+    }
+    
+    private int metadataOffset() {
+        return HEADER_SIZE + 4 * (winCount + loseCount + 1);
+    }
+    
+    /**
+     * Декодирует фразу по индексу
+     * @param isWin true для победных фраз, false для фраз поражения
+     * @param index индекс фразы от 0 до size(isWin) - 1
+     */
+    public String phrase(boolean isWin, int index) {
+        int position = (isWin ? 0 : winCount) + Objects.checkIndex(index, size(isWin));
+        int start = buffer.getInt(HEADER_SIZE + 4 * position);
+        int end = buffer.getInt(HEADER_SIZE + 4 * (position + 1));
+        byte[] bytes = new byte[end - start];
+        buffer.get(blobOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
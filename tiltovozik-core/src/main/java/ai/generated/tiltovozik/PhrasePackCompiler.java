@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Офлайн-компилятор текстовых файлов фраз в бинарный пакет PhrasePack.
+ * Запуск: java -cp tiltovozik.jar ai.generated.tiltovozik.PhrasePackCompiler win_phrases.txt lose_phrases.txt phrases.tpack
+ */
+public final class PhrasePackCompiler {
+    
+    private PhrasePackCompiler() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Использование: PhrasePackCompiler <win_phrases.txt> <lose_phrases.txt> <phrases.tpack>");
+            System.exit(2);
+        }
+        compile(args[0], args[1], Paths.get(args[2]));
+    }
+    
+    /**
+     * Компилирует файлы фраз в пакет
+     * @param winPhrasesFile путь к файлу с победными фразами
+     * @param losePhrasesFile путь к файлу с фразами поражений
+     * @param packFile путь к создаваемому пакету
+     */
+    public static void compile(String winPhrasesFile, String losePhrasesFile, Path packFile) throws IOException {
+        List<String> winPhrases = PhraseManager.loadPhrasesFromFile(winPhrasesFile);
+        List<String> losePhrases = PhraseManager.loadPhrasesFromFile(losePhrasesFile);
+        int total = winPhrases.size() + losePhrases.size();
+        List<PhraseTag> tags = new ArrayList<>(total);
+        boolean tagged = false;
+        for (List<String> phrases : List.of(winPhrases, losePhrases)) {
+            for (String phrase : phrases) {
+                PhraseTag tag = PhraseTag.parse(phrase);
+                tagged |= tag.isTagged();
+                tags.add(tag);
+            }
+        }
+        
+        // Разметка пишется только если она есть: неразмеченный пакет остается в формате версии 1
+        ByteBuffer table = ByteBuffer.allocate(PhrasePack.HEADER_SIZE + 4 * (total + 1) + (tagged ? 8 * total : 0))
+                                     .order(ByteOrder.LITTLE_ENDIAN);
+        table.putInt(PhrasePack.MAGIC).putInt(tagged ? PhrasePack.TAGGED_VERSION : PhrasePack.VERSION)
+             .putInt(winPhrases.size()).putInt(losePhrases.size());
+        
+        ByteArrayOutputStream blob = new ByteArrayOutputStream();
+        table.putInt(0);
+        for (PhraseTag tag : tags) {
+            blob.writeBytes(tag.getText().getBytes(StandardCharsets.UTF_8));
+            table.putInt(blob.size());
+        }
+        if (tagged) {
+            for (PhraseTag tag : tags) {
+                table.putInt(tag.getStateMask());
+            }
+            for (PhraseTag tag : tags) {
+                table.putFloat(tag.getWeight());
+            }
+        }
+        table.flip();
+        
+        // Запущенное приложение держит пакет отображенным в память и читает шаблоны лениво,
+        // поэтому старый файл не переписывается, а заменяется готовым целиком
+        Path temp = packFile.resolveSibling(packFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] parts = {table, ByteBuffer.wrap(blob.toByteArray())};
+            while (parts[1].hasRemaining()) {
+                channel.write(parts);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, packFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        System.out.printf("Скомпилировано фраз: побед - %d, поражений - %d, %d байт%n",
+                         winPhrases.size(), losePhrases.size(), table.limit() + blob.size());
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Следит за файлами фраз и перезагружает их в фоновом потоке.
+ * Серия сохранений подряд объединяется в одну перезагрузку, новый набор фраз
+ * подменяет старый атомарно, поэтому читатели не блокируются и не видят частично загруженный список.
+ * Наборы языков и тем из PhraseCorpusRegistry при перезагрузке выгружаются из реестра
+ * и при следующем запросе читаются заново
+ */
+public final class PhraseReloader implements Closeable {
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+    
+    private final PhraseManager phraseManager;
+    private final String packFile;
+    private final String winPhrasesFile;
+    private final String losePhrasesFile;
+    private final long debounceMillis;
+    private final Set<Path> watchedFiles = ConcurrentHashMap.newKeySet();
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile Runnable onReload = () -> { };
+    private volatile PhraseCorpusRegistry registry;
+    
+    public PhraseReloader(PhraseManager phraseManager, String packFile,
+                          String winPhrasesFile, String losePhrasesFile) throws IOException {
+        this(phraseManager, packFile, winPhrasesFile, losePhrasesFile, DEFAULT_DEBOUNCE_MILLIS);
+    }
+    
+    /**
+     * @param phraseManager менеджер, в который загружаются новые фразы
+     * @param packFile путь к пакету фраз
+     * @param winPhrasesFile путь к файлу с победными фразами
+     * @param losePhrasesFile путь к файлу с фразами поражений
+     * @param debounceMillis сколько миллисекунд тишины ждать после последнего изменения
+     */
+    public PhraseReloader(PhraseManager phraseManager, String packFile, String winPhrasesFile,
+                          String losePhrasesFile, long debounceMillis) throws IOException {
+        this.phraseManager = phraseManager;
+        this.packFile = packFile;
+        this.winPhrasesFile = winPhrasesFile;
+        this.losePhrasesFile = losePhrasesFile;
+        this.debounceMillis = debounceMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        
+        Set<Path> directories = new HashSet<>();
+        for (String file : new String[] {packFile, winPhrasesFile, losePhrasesFile}) {
+            Path path = Paths.get(file).toAbsolutePath().normalize();
+            watchedFiles.add(path);
+            directories.add(path.getParent());
+        }
+        register(directories);
+        
+        this.thread = new Thread(this::watch, "tiltovozik-phrase-reloader");
+        this.thread.setDaemon(true);
+    }
+    
+    /**
+     * Задает действие, выполняемое в фоновом потоке после каждой успешной перезагрузки
+     */
+    public void setOnReload(Runnable onReload) {
+        this.onReload = onReload;
+    }
+    
+    /**
+     * Задает реестр наборов, который выгружается при каждой перезагрузке
+     */
+    public void invalidateOnReload(PhraseCorpusRegistry registry) {
+        this.registry = registry;
+    }
+    
+    /**
+     * Добавляет файлы к наблюдаемым, например наборы языка из PhraseCorpusRegistry.sourceFiles.
+     * Можно вызывать и после start
+     */
+    public void watchFiles(List<Path> files) throws IOException {
+        Set<Path> directories = new HashSet<>();
+        for (Path file : files) {
+            Path path = file.toAbsolutePath().normalize();
+            watchedFiles.add(path);
+            directories.add(path.getParent());
+        }
+        register(directories);
+    }
+    
+    private void register(Set<Path> directories) throws IOException {
+        for (Path directory : directories) {
+            if (Files.isDirectory(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+    
+    /**
+     * Запускает наблюдение за файлами
+     */
+    public void start() {
+        thread.start();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+    
+    private void watch() {
+        try {
+            while (true) {
+                if (!drain(watchService.take())) {
+                    continue;
+                }
+                // Ждем, пока редактор закончит серию сохранений
+                WatchKey next;
+                while ((next = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+                    drain(next);
+                }
+                reload();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Наблюдение остановлено через close()
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private boolean drain(WatchKey key) {
+        boolean relevant = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || watchedFiles.contains(directory.resolve((Path) event.context()))) {
+                relevant = true;
+            }
+        }
+        key.reset();
+        return relevant;
+    }
+    
+    private void reload() {
+        try {
+            // Файл, который редактор в этот момент пересоздает, пропускаем: иначе подставятся фразы по умолчанию
+            if (Files.isRegularFile(Paths.get(packFile))
+                    || (Files.isRegularFile(Paths.get(winPhrasesFile)) && Files.isRegularFile(Paths.get(losePhrasesFile)))) {
+                phraseManager.loadPhrases(packFile, winPhrasesFile, losePhrasesFile);
+            }
+            PhraseCorpusRegistry target = registry;
+            if (target != null) {
+                target.invalidateAll();
+            }
+            onReload.run();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка перезагрузки фраз, оставлены прежние: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+/**
+ * Ограниченный кэш готовых фраз для популярных пар "фраза - имя игрока".
+ * Кэш прямого отображения: каждая пара попадает в один слот, новая запись вытесняет старую.
+ * Записи неизменяемы, поэтому чтение и запись из разных потоков не требуют блокировок
+ */
+final class PhraseRenderCache {
+    private final Entry[] entries;
+    private final int mask;
+    
+    /**
+     * @param capacity количество слотов, округляется вверх до степени двойки
+     */
+    PhraseRenderCache(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+    
+    /**
+     * Возвращает готовую фразу или null, если пары нет в кэше
+     */
+    String get(PhraseTemplate template, String username) {
+        Entry entry = entries[slot(template, username)];
+        if (entry != null && entry.template == template && entry.username.equals(username)) {
+            return entry.rendered;
+        }
+        return null;
+    }
+    
+    void put(PhraseTemplate template, String username, String rendered) {
+        entries[slot(template, username)] = new Entry(template, username, rendered);
+    }
+    
+    private int slot(PhraseTemplate template, String username) {
+        int hash = template.hash() * 31 + username.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+    
+    private static final class Entry {
+        final PhraseTemplate template;
+        final String username;
+        final String rendered;
+        
+        Entry(PhraseTemplate template, String username, String rendered) {
+            this.template = template;
+            this.username = username;
+            this.rendered = rendered;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.Locale;
+
+/**
+ * Разметка фразы: для каких состояний тильта она подходит и с каким весом выбирается.
+ * Формат строки: "[RAGE,APOCALYPSE:3] текст фразы". Состояния перечисляются через запятую
+ * или пробел, "*" означает все состояния, вес после двоеточия необязателен и по умолчанию равен 1.
+ * Строка без разметки или с нераспознанной разметкой подходит для всех состояний с весом 1
+ */
+final class PhraseTag {
+    static final int ALL_STATES = (1 << TiltState.values().length) - 1;
+    
+    private final int stateMask;
+    private final float weight;
+    private final String text;
+    
+    private PhraseTag(int stateMask, float weight, String text) {
+        this.stateMask = stateMask;
+        this.weight = weight;
+        this.text = text;
+    }
+    
+    /**
+     * Разбирает строку файла фраз
+     */
+    static PhraseTag parse(String line) {
+        PhraseTag untagged = new PhraseTag(ALL_STATES, 1, line);
+        int close = line.indexOf(']');
+        if (!line.startsWith("[") || close < 0) {
+            return untagged;
+        }
+        
+        String spec = line.substring(1, close);
+        float weight = 1;
+        int colon = spec.indexOf(':');
+        if (colon >= 0) {
+            try {
+                weight = Float.parseFloat(spec.substring(colon + 1).trim());
+            } catch (NumberFormatException e) {
+                return untagged;
+            }
+            if (!(weight > 0) || Float.isInfinite(weight)) {
+                return untagged;
+            }
+            spec = spec.substring(0, colon);
+        }
+        
+        int mask = 0;
+        for (String name : spec.trim().split("[,\\s]+")) {
+            if (name.isEmpty() || name.equals("*")) {
+                mask = ALL_STATES;
+                continue;
+            }
+            try {
+                mask |= 1 << TiltState.valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_')).ordinal();
+            } catch (IllegalArgumentException e) {
+                // Квадратные скобки в начале обычной фразы - не разметка
+                return untagged;
+            }
+        }
+        return new PhraseTag(mask, weight, line.substring(close + 1).trim());
+    }
+    
+    /**
+     * Возвращает маску состояний: бит с номером ordinal() состояния
+     */
+    int getStateMask() {
+        return stateMask;
+    }
+    
+    float getWeight() {
+        return weight;
+    }
+    
+    /**
+     * Возвращает текст фразы без разметки
+     */
+    String getText() {
+        return text;
+    }
+    
+    /**
+     * Проверяет, отличается ли разметка от значения по умолчанию
+     */
+    boolean isTagged() {
+        return stateMask != ALL_STATES || weight != 1;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Фраза, заранее разобранная на текстовые сегменты и плейсхолдеры.
+ * Поддерживаются {username}, {tilt}, {state}, {streak} и {winrate},
+ * неизвестные плейсхолдеры остаются в тексте как есть
+ */
+public final class PhraseTemplate {
+    static final byte USERNAME = 0;
+    static final byte TILT = 1;
+    static final byte STATE = 2;
+    static final byte STREAK = 3;
+    static final byte WINRATE = 4;
+    private static final String[] PLACEHOLDERS = {"{username}", "{tilt}", "{state}", "{streak}", "{winrate}"};
+    
+    private final String text;
+    private final String[] literals;
+    private final byte[] variables;
+    private final boolean usernameOnly;
+    private final int hash;
+    
+    private PhraseTemplate(String text, String[] literals, byte[] variables) {
+        this.text = text;
+        this.literals = literals;
+        this.variables = variables;
+        boolean onlyUsername = true;
+        for (byte variable : variables) {
+            onlyUsername &= variable == USERNAME;
+        }
+        this.usernameOnly = onlyUsername;
+        this.hash = text.hashCode();
+    }
+    
+    /**
+     * Разбирает текст фразы на сегменты
+     * @param text исходный текст фразы с плейсхолдерами
+     */
+    public static PhraseTemplate compile(String text) {
+        List<String> literals = new ArrayList<>();
+        List<Byte> variables = new ArrayList<>();
+        int literalStart = 0;
+        int open = text.indexOf('{');
+        while (open >= 0) {
+            byte variable = placeholderAt(text, open);
+            if (variable >= 0) {
+                literals.add(text.substring(literalStart, open));
+                variables.add(variable);
+                literalStart = open + PLACEHOLDERS[variable].length();
+                open = text.indexOf('{', literalStart);
+            } else {
+                open = text.indexOf('{', open + 1);
+            }
+        }
+        literals.add(text.substring(literalStart));
+        
+        byte[] variableIds = new byte[variables.size()];
+        for (int i = 0; i < variableIds.length; i++) {
+            variableIds[i] = variables.get(i);
+        }
+        return new PhraseTemplate(text, literals.toArray(new String[0]), variableIds);
+    }
+    
+    /**
+     * Дописывает фразу с подставленными значениями в builder
+     * @param context значения плейсхолдеров
+     * @param out буфер, в который дописывается фраза
+     */
+    public void render(PhraseContext context, StringBuilder out) {
+        out.append(literals[0]);
+        for (int i = 0; i < variables.length; i++) {
+            switch (variables[i]) {
+                case USERNAME:
+                    out.append(context.getUsername());
+                    break;
+                case TILT:
+                    out.append(context.getTilt());
+                    break;
+                case STATE:
+                    out.append(context.getState().getDisplayName());
+                    break;
+                case STREAK:
+                    out.append(context.getStreak());
+                    break;
+                case WINRATE:
+                    out.append(context.getWinRate());
+                    break;
+                default:
+                    throw new IllegalStateException("Неизвестный плейсхолдер: " + variables[i]);
+            }
+            out.append(literals[i + 1]);
+        }
+    }
+    
+    /**
+     * Возвращает исходный текст фразы
+     */
+    public String getText() {
+        return text;
+    }
+    
+    /**
+     * Проверяет, что во фразе нет плейсхолдеров
+     */
+    boolean isConstant() {
+        return variables.length == 0;
+    }
+    
+    /**
+     * Проверяет, что фраза зависит только от имени игрока и ее результат можно кэшировать
+     */
+    boolean isUsernameOnly() {
+        return usernameOnly;
+    }
+    
+    int hash() {
+        return hash;
+    }
+    
+    private static byte placeholderAt(String text, int offset) {
+        for (byte i = 0; i < PLACEHOLDERS.length; i++) {
+            if (text.startsWith(PLACEHOLDERS[i], offset)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
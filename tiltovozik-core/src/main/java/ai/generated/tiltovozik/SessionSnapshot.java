@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Снимок значений тильта всех сессий на момент определенного события журнала.
+ * Для каждой сессии хранится значение после ее последнего события и время этого события,
+ * от которого продолжается остывание, а в заголовке - имя игрока настольного приложения.
+ * Файл снимка заменяется атомарно, поэтому при сбое остается предыдущий целый снимок
+ */
+final class SessionSnapshot {
+    private static final int MAGIC = 0x544C5453; // "TLTS"
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_TIMES = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int MAX_USERNAME_BYTES = 1024;
+    
+    private final long sequence;
+    private final String username;
+    private final int[] tilts;
+    private final long[] times;
+    
+    private SessionSnapshot(long sequence, String username, int[] tilts, long[] times) {
+        this.sequence = sequence;
+        this.username = username;
+        this.tilts = tilts;
+        this.times = times;
+    }
+    
+    /**
+     * Номер первого события журнала, не вошедшего в снимок
+     */
+    long sequence() {
+        return sequence;
+    }
+    
+    /**
+     * Имя игрока или null, если оно не сохранялось
+     */
+    String username() {
+        return username;
+    }
+    
+    int[] tilts() {
+        return tilts;
+    }
+    
+    /**
+     * Время последнего события каждой сессии или null для снимков первой версии
+     */
+    long[] times() {
+        return times;
+    }
+    
+    /**
+     * Записывает снимок во временный файл и атомарно подменяет им прежний
+     * @param file путь к файлу снимка
+     * @param sequence номер первого события журнала, не вошедшего в снимок
+     * @param username имя игрока или null
+     * @param tilts значения тильта сессий после их последних событий
+     * @param times время последних событий сессий
+     * @param count количество сессий в снимке
+     */
+    static void write(Path file, long sequence, String username, int[] tilts, long[] times, int count) throws IOException {
+        byte[] name = username == null ? new byte[0] : username.getBytes(StandardCharsets.UTF_8);
+        if (name.length > MAX_USERNAME_BYTES) {
+            // Обрезка могла бы разрезать символ UTF-8, слишком длинное имя просто не сохраняется
+            name = new byte[0];
+        }
+        int size = HEADER_SIZE + 4 + name.length + count * 12 + 4;
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(sequence).putInt(count);
+        buffer.putInt(name.length).put(name);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(tilts[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(times[i]);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    /**
+     * Читает снимок
+     * @return снимок или null, если файла нет или он поврежден
+     */
+    static SessionSnapshot read(Path file) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (bytes.length < HEADER_SIZE + 4) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int version = buffer.getInt(4);
+        int count = buffer.getInt(16);
+        if (buffer.getInt(0) != MAGIC || (version != VERSION && version != VERSION_WITHOUT_TIMES)
+                || count < 0 || count > (bytes.length - HEADER_SIZE) / 4) {
+            return null;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, bytes.length - 4);
+        if (buffer.getInt(bytes.length - 4) != (int) crc.getValue()) {
+            return null;
+        }
+        buffer.position(HEADER_SIZE);
+        String username = null;
+        long[] times = null;
+        if (version == VERSION) {
+            int nameLength = buffer.getInt();
+            if (nameLength < 0 || nameLength > MAX_USERNAME_BYTES
+                    || bytes.length != HEADER_SIZE + 4 + nameLength + count * 12L + 4) {
+                return null;
+            }
+            username = nameLength == 0 ? null : new String(bytes, buffer.position(), nameLength, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + nameLength);
+        } else if (bytes.length != HEADER_SIZE + count * 4L + 4) {
+            return null;
+        }
+        int[] tilts = new int[count];
+        for (int i = 0; i < count; i++) {
+            tilts[i] = buffer.getInt();
+        }
+        if (version == VERSION) {
+            times = new long[count];
+            for (int i = 0; i < count; i++) {
+                times[i] = buffer.getLong();
+            }
+        }
+        return new SessionSnapshot(buffer.getLong(8), username, tilts, times);
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.Arrays;
+
+/**
+ * Скользящая статистика игровой сессии.
+ * Все агрегаты хранятся в кольцевых буферах фиксированного размера и обновляются
+ * без выделения памяти, независимо от количества сыгранных игр
+ */
+public final class SessionStats {
+    public static final int DEFAULT_WINDOW_SIZE = 20;
+    private static final long MINUTE_MILLIS = 60 * 1000L;
+    private static final int HOUR_BUCKETS = 60;
+    private static final int STATE_COUNT = TiltState.values().length;
+    
+    // Последние N игр: результаты и тильт после каждой игры
+    private final byte[] windowResults;
+    private final int[] windowTilts;
+    private int windowHead;
+    private int windowCount;
+    private int windowWins;
+    
+    // Игры за последний час по минутам: счетчики не зависят от того, сколько игр пришло
+    private final long[] bucketMinutes = new long[HOUR_BUCKETS];
+    private final int[] bucketGames = new int[HOUR_BUCKETS];
+    private final int[] bucketWins = new int[HOUR_BUCKETS];
+    
+    // Время в каждом состоянии тильта, включая смены состояния из-за остывания между играми
+    private final TiltModel model;
+    private final long[] stateMillis = new long[STATE_COUNT];
+    private int currentState = TiltState.NEUTRAL.ordinal();
+    private long stateSince;
+    private int startTilt;
+    private int lastTilt;
+    private long lastEventMillis;
+    
+    private int wins;
+    private int losses;
+    private int streak;
+    private boolean streakWins;
+    private int bestWinStreak;
+    private int worstLoseStreak;
+    
+    public SessionStats() {
+        this(DEFAULT_WINDOW_SIZE, TiltModel.classic());
+    }
+    
+    /**
+     * @param model модель тильта движка: по ней учитывается время в состояниях при остывании
+     */
+    public SessionStats(TiltModel model) {
+        this(DEFAULT_WINDOW_SIZE, model);
+    }
+    
+    /**
+     * @param windowSize количество последних игр для скользящих показателей
+     * @param model модель тильта движка: по ней учитывается время в состояниях при остывании
+     */
+    public SessionStats(int windowSize, TiltModel model) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Размер окна должен быть положительным: " + windowSize);
+        }
+        this.windowResults = new byte[windowSize];
+        this.windowTilts = new int[windowSize];
+        this.model = model;
+        this.stateSince = System.currentTimeMillis();
+        this.lastEventMillis = stateSince;
+        Arrays.fill(bucketMinutes, Long.MIN_VALUE);
+    }
+    
+    /**
+     * Начинает отсчет сессии с заданного тильта
+     * @param tilt начальное значение тильта
+     * @param nowMillis текущее время в миллисекундах
+     */
+    public synchronized void start(int tilt, long nowMillis) {
+        startTilt = tilt;
+        lastTilt = tilt;
+        lastEventMillis = nowMillis;
+        currentState = TiltState.ordinalOf(tilt);
+        stateSince = nowMillis;
+    }
+    
+    /**
+     * Учитывает результат игры
+     * @param isWin true для победы, false для поражения
+     * @param tiltAfter значение тильта после игры
+     * @param nowMillis время игры в миллисекундах
+     */
+    public synchronized void record(boolean isWin, int tiltAfter, long nowMillis) {
+        byte result = (byte) (isWin ? 1 : 0);
+        if (isWin) {
+            wins++;
+        } else {
+            losses++;
+        }
+        
+        // Серия
+        streak = (wins + losses > 1 && streakWins == isWin) ? streak + 1 : 1;
+        streakWins = isWin;
+        if (isWin) {
+            bestWinStreak = Math.max(bestWinStreak, streak);
+        } else {
+            worstLoseStreak = Math.max(worstLoseStreak, streak);
+        }
+        
+        // Окно последних игр: вытесняемый элемент вычитается из суммы
+        if (windowCount == windowResults.length) {
+            windowWins -= windowResults[windowHead];
+        } else {
+            windowCount++;
+        }
+        windowResults[windowHead] = result;
+        windowTilts[windowHead] = tiltAfter;
+        windowHead = (windowHead + 1) % windowResults.length;
+        windowWins += result;
+        
+        // Минута в окне последнего часа, устаревший счетчик той же ячейки обнуляется
+        long minute = Math.floorDiv(nowMillis, MINUTE_MILLIS);
+        int bucket = (int) Math.floorMod(minute, (long) HOUR_BUCKETS);
+        if (bucketMinutes[bucket] != minute) {
+            bucketMinutes[bucket] = minute;
+            bucketGames[bucket] = 0;
+            bucketWins[bucket] = 0;
+        }
+        bucketGames[bucket]++;
+        bucketWins[bucket] += result;
+        
+        // Время в состоянии: сначала смены из-за остывания до этой игры, затем результат игры
+        settleDecay(nowMillis);
+        lastTilt = tiltAfter;
+        lastEventMillis = nowMillis;
+        int state = TiltState.ordinalOf(tiltAfter);
+        if (state != currentState) {
+            stateMillis[currentState] += Math.max(0, nowMillis - stateSince);
+            currentState = state;
+            stateSince = nowMillis;
+        }
+    }
+    
+    public synchronized int getGames() {
+        return wins + losses;
+    }
+    
+    public synchronized int getWins() {
+        return wins;
+    }
+    
+    public synchronized int getLosses() {
+        return losses;
+    }
+    
+    /**
+     * Процент побед за всю сессию от 0 до 100
+     */
+    public synchronized int getWinRate() {
+        int games = wins + losses;
+        return games == 0 ? 0 : wins * 100 / games;
+    }
+    
+    /**
+     * Процент побед за последние N игр от 0 до 100
+     */
+    public synchronized int getWindowWinRate() {
+        return windowCount == 0 ? 0 : windowWins * 100 / windowCount;
+    }
+    
+    /**
+     * Длина текущей серии одинаковых результатов
+     */
+    public synchronized int getStreak() {
+        return streak;
+    }
+    
+    /**
+     * Проверяет, является ли текущая серия серией побед
+     */
+    public synchronized boolean isWinStreak() {
+        return streakWins;
+    }
+    
+    public synchronized int getBestWinStreak() {
+        return bestWinStreak;
+    }
+    
+    public synchronized int getWorstLoseStreak() {
+        return worstLoseStreak;
+    }
+    
+    /**
+     * Скорость изменения тильта: среднее изменение за игру по последним N играм
+     */
+    public synchronized double getTiltVelocity() {
+        if (windowCount == 0) {
+            return 0;
+        }
+        int newest = windowTilts[(windowHead - 1 + windowTilts.length) % windowTilts.length];
+        // Когда окно заполнено, базой служит тильт перед самой старой игрой окна, иначе - начальный
+        int oldest = windowCount == windowTilts.length ? windowTilts[windowHead] : startTilt;
+        int games = windowCount == windowTilts.length ? windowCount - 1 : windowCount;
+        return games == 0 ? 0 : (newest - oldest) / (double) games;
+    }
+    
+    /**
+     * Количество игр за последний час с точностью до минуты
+     */
+    public synchronized int getHourGames(long nowMillis) {
+        return sumHour(bucketGames, nowMillis);
+    }
+    
+    /**
+     * Процент побед за последний час от 0 до 100
+     */
+    public synchronized int getHourWinRate(long nowMillis) {
+        int games = sumHour(bucketGames, nowMillis);
+        return games == 0 ? 0 : sumHour(bucketWins, nowMillis) * 100 / games;
+    }
+    
+    /**
+     * Время, проведенное в состоянии тильта, включая текущее пребывание в нем
+     */
+    public synchronized long getTimeInState(TiltState state, long nowMillis) {
+        settleDecay(nowMillis);
+        long millis = stateMillis[state.ordinal()];
+        if (state.ordinal() == currentState) {
+            millis += Math.max(0, nowMillis - stateSince);
+        }
+        return millis;
+    }
+    
+    private int sumHour(int[] counters, long nowMillis) {
+        long minute = Math.floorDiv(nowMillis, MINUTE_MILLIS);
+        int sum = 0;
+        for (int i = 0; i < HOUR_BUCKETS; i++) {
+            if (bucketMinutes[i] > minute - HOUR_BUCKETS && bucketMinutes[i] <= minute) {
+                sum += counters[i];
+            }
+        }
+        return sum;
+    }
+    
+    /**
+     * Переносит в статистику смены состояния, которые остывание вызвало после последней игры.
+     * Момент каждой смены находится двоичным поиском по времени простоя с точностью до миллисекунды
+     */
+    private void settleDecay(long nowMillis) {
+        if (!model.decays() || nowMillis <= stateSince) {
+            return;
+        }
+        while (stateAfterIdle(nowMillis - lastEventMillis) != currentState) {
+            long low = Math.max(0, stateSince - lastEventMillis);
+            long high = nowMillis - lastEventMillis;
+            while (high - low > 1) {
+                long middle = (low + high) >>> 1;
+                if (stateAfterIdle(middle) == currentState) {
+                    low = middle;
+                } else {
+                    high = middle;
+                }
+            }
+            long changedAt = lastEventMillis + high;
+            stateMillis[currentState] += Math.max(0, changedAt - stateSince);
+            currentState = stateAfterIdle(high);
+            stateSince = changedAt;
+        }
+    }
+    
+    private int stateAfterIdle(long idleMillis) {
+        return TiltState.ordinalOf(TiltEngine.round(model.decay(lastTilt, idleMillis)));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Замер длительности этапов запуска приложения.
+ * Этапы могут выполняться параллельно в разных потоках
+ */
+final class StartupTimer {
+    private final long startNanos = System.nanoTime();
+    private final List<String> phases = new ArrayList<>();
+    
+    /**
+     * Выполняет этап и запоминает его длительность
+     * @param phase название этапа для отчета
+     * @param action действие этапа
+     */
+    <T> T time(String phase, Supplier<T> action) {
+        long started = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, started);
+        }
+    }
+    
+    /**
+     * Выполняет этап без результата и запоминает его длительность
+     */
+    void run(String phase, Runnable action) {
+        time(phase, () -> {
+            action.run();
+            return null;
+        });
+    }
+    
+    /**
+     * Запоминает этап, начавшийся в момент started
+     * @param phase название этапа для отчета
+     * @param started значение System.nanoTime() в начале этапа
+     */
+    synchronized void record(String phase, long started) {
+        long now = System.nanoTime();
+        phases.add(String.format("%s %.1f мс (с %.1f мс)", phase,
+                                 (now - started) / 1e6, (started - startNanos) / 1e6));
+    }
+    
+    /**
+     * Выводит длительность всех этапов и общее время с момента создания таймера
+     */
+    synchronized void report() {
+        System.out.printf("Запуск за %.1f мс: %s%n", (System.nanoTime() - startNanos) / 1e6,
+                          String.join(", ", phases));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Модель с множителем серий: каждый следующий матч с тем же результатом
+ * сильнее меняет тильт, чем предыдущий, до заданного предела
+ */
+public final class StreakTiltModel implements TiltModel {
+    private static final double DEFAULT_STEP = 0.25;
+    private static final double DEFAULT_MAX_MULTIPLIER = 2.0;
+    
+    private final TiltModel base;
+    private final double step;
+    private final double maxMultiplier;
+    
+    /**
+     * Классическая модель, множитель растет на 0.25 за матч серии, но не выше 2
+     */
+    public StreakTiltModel() {
+        this(new ClassicTiltModel());
+    }
+    
+    /**
+     * @param base модель, изменение которой умножается с шагом и пределом по умолчанию
+     */
+    public StreakTiltModel(TiltModel base) {
+        this(base, DEFAULT_STEP, DEFAULT_MAX_MULTIPLIER);
+    }
+    
+    /**
+     * @param base модель, изменение которой умножается
+     * @param step прирост множителя за каждый матч серии
+     * @param maxMultiplier предельный множитель
+     */
+    public StreakTiltModel(TiltModel base, double step, double maxMultiplier) {
+        this.base = base;
+        this.step = step;
+        this.maxMultiplier = maxMultiplier;
+    }
+    
+    @Override
+    public String name() {
+        return "streak";
+    }
+    
+    @Override
+    public int delta(int tilt, boolean isWin, int streak, RandomGenerator random) {
+        double multiplier = Math.min(maxMultiplier, 1 + step * streak);
+        return (int) Math.round(base.delta(tilt, isWin, streak, random) * multiplier);
+    }
+    
+    @Override
+    public boolean decays() {
+        return base.decays();
+    }
+    
+    @Override
+    public double decay(double tilt, long idleMillis) {
+        return base.decay(tilt, idleMillis);
+    }
+}
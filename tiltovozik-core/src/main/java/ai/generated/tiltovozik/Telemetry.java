@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Переключаемая во время работы телеметрия: гистограммы задержек горячих путей
+ * и запись JDK Flight Recorder с событиями приложения.
+ * Пока телеметрия выключена, замер стоит одного чтения volatile-поля
+ */
+public final class Telemetry {
+    public static final LatencyHistogram CLICK_TO_RENDER = new LatencyHistogram("click-to-render");
+    public static final LatencyHistogram PHRASE_SELECTION = new LatencyHistogram("getRandomPhrase");
+    public static final LatencyHistogram PULSE_LAG = new LatencyHistogram("fx-pulse-lag");
+    private static final LatencyHistogram[] HISTOGRAMS = {CLICK_TO_RENDER, PHRASE_SELECTION, PULSE_LAG};
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    
+    private static volatile boolean enabled;
+    private static Recording recording;
+    
+    private Telemetry() {
+    }
+    
+    public static boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Включает или выключает телеметрию. При включении гистограммы обнуляются
+     * и начинается запись JFR с профилем default, при выключении запись останавливается
+     */
+    public static synchronized void setEnabled(boolean on) {
+        if (on == enabled) return;
+        
+        if (on) {
+            for (LatencyHistogram histogram : HISTOGRAMS) {
+                histogram.reset();
+            }
+            try {
+                recording = new Recording(Configuration.getConfiguration("default"));
+                recording.setName("tiltovozik");
+                recording.enable(TiltEvents.TiltChange.class);
+                recording.enable(TiltEvents.StateTransition.class);
+                recording.enable(TiltEvents.PhraseSelection.class);
+                recording.enable(TiltEvents.PhraseLoad.class);
+                recording.start();
+            } catch (Exception e) {
+                recording = null;
+                System.err.println("Запись JFR недоступна, собираются только гистограммы: " + e.getMessage());
+            }
+        } else if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        enabled = on;
+        System.out.println(on ? "Телеметрия включена" : "Телеметрия выключена");
+    }
+    
+    /**
+     * Начинает замер
+     * @return момент начала или 0, если телеметрия выключена
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+    
+    /**
+     * Завершает замер, начатый start()
+     */
+    public static void record(LatencyHistogram histogram, long startedNanos) {
+        if (startedNanos != 0) {
+            histogram.record(System.nanoTime() - startedNanos);
+        }
+    }
+    
+    /**
+     * Возвращает сводку по всем гистограммам
+     */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            report.append(histogram.summary()).append(System.lineSeparator());
+        }
+        return report.toString();
+    }
+    
+    /**
+     * Сохраняет сводку гистограмм и, если идет запись, снимок JFR рядом с ней
+     * @param directory папка для файлов telemetry-<время>.txt и telemetry-<время>.jfr
+     * @return путь к файлу сводки
+     */
+    public static synchronized Path dump(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String baseName = "telemetry-" + LocalDateTime.now().format(FILE_TIME);
+        Path reportFile = directory.resolve(baseName + ".txt");
+        Files.writeString(reportFile, report());
+        if (recording != null) {
+            recording.dump(directory.resolve(baseName + ".jfr"));
+        }
+        return reportFile;
+    }
+    
+    static void tiltChanged(int sessionId, boolean isWin, int before, int after, int streak) {
+        TiltEvents.TiltChange event = new TiltEvents.TiltChange();
+        if (event.isEnabled()) {
+            event.sessionId = sessionId;
+            event.win = isWin;
+            event.before = before;
+            event.after = after;
+            event.streak = streak;
+            event.commit();
+        }
+        int from = TiltState.ordinalOf(before);
+        int to = TiltState.ordinalOf(after);
+        if (from != to) {
+            TiltEvents.StateTransition transition = new TiltEvents.StateTransition();
+            if (transition.isEnabled()) {
+                transition.sessionId = sessionId;
+                transition.from = TiltState.ofOrdinal(from).name();
+                transition.to = TiltState.ofOrdinal(to).name();
+                transition.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.time.Instant;
+import java.util.Locale;
+
+/**
+ * Оповещение об экстремальном тильте игрока. Неизменяемо и передается в потоки доставки
+ */
+public final class TiltAlert {
+    
+    /**
+     * Причина оповещения
+     */
+    public enum Kind {
+        // Игрок вошел в Ярость или Апокалипсис
+        ENTERED("вошел в"),
+        // Игрок перешел из Ярости в Апокалипсис
+        ESCALATED("скатился в"),
+        // Игрок остается в экстремальном состоянии дольше интервала повтора
+        SUSTAINED("все еще в"),
+        // Игрок вышел из экстремальных состояний
+        CLEARED("вышел из экстремального тильта, сейчас");
+        
+        private final String description;
+        
+        Kind(String description) {
+            this.description = description;
+        }
+    }
+    
+    private final Kind kind;
+    private final int sessionId;
+    private final int tilt;
+    private final long timeMillis;
+    
+    public TiltAlert(Kind kind, int sessionId, int tilt, long timeMillis) {
+        this.kind = kind;
+        this.sessionId = sessionId;
+        this.tilt = tilt;
+        this.timeMillis = timeMillis;
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public int getSessionId() {
+        return sessionId;
+    }
+    
+    public int getTilt() {
+        return tilt;
+    }
+    
+    public TiltState getState() {
+        return TiltState.fromValue(tilt);
+    }
+    
+    public long getTimeMillis() {
+        return timeMillis;
+    }
+    
+    /**
+     * Возвращает оповещение в виде JSON-объекта для вебхука
+     */
+    public String toJson() {
+        return "{\"kind\":\"" + kind.name().toLowerCase(Locale.ROOT) + "\",\"session\":" + sessionId
+            + ",\"tilt\":" + tilt + ",\"state\":\"" + getState().name() + "\",\"time\":\""
+            + Instant.ofEpochMilli(timeMillis) + "\"}";
+    }
+    
+    /**
+     * Возвращает текст оповещения для журнала и уведомлений
+     */
+    public String getMessage() {
+        TiltState state = getState();
+        return String.format("Игрок %d %s %s %s (%+d)", sessionId, kind.description,
+                             state.getSymbol(), state.getDisplayName(), tilt);
+    }
+    
+    @Override
+    public String toString() {
+        return Instant.ofEpochMilli(timeMillis) + " " + getMessage();
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Оповещения об экстремальном тильте: вход в Ярость или Апокалипсис, затяжное пребывание в них и выход.
+ * observe() вызывается в потоке обработки результата и стоит O(1): решение принимается под блокировкой
+ * полосы сессии, а оповещение кладется в ограниченную очередь без ожидания. При переполнении очереди
+ * оповещение отбрасывается, поэтому медленный получатель никогда не задерживает клик.
+ * Доставка идет в фоновых потоках демонах.
+ * Гистерезис: уровень понижается, только когда тильт уходит ниже границы состояния на заданный запас,
+ * поэтому колебания у границы не дают серию оповещений. Для каждого игрока действует минимальный
+ * интервал между оповещениями, выход из экстремального тильта сообщается всегда
+ */
+public final class TiltAlerter implements Closeable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    public static final int DEFAULT_HYSTERESIS = 15;
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 30_000;
+    public static final long DEFAULT_REPEAT_INTERVAL_MILLIS = 5 * 60_000;
+    
+    private static final int STRIPES = 64;
+    private static final int NONE = 0;
+    private static final int RAGE = 1;
+    private static final int APOCALYPSE = 2;
+    private static final int LEVEL_MASK = 3;
+    // В старших битах - последний объявленный уровень: без оповещения о входе не сообщается и о выходе
+    private static final int ANNOUNCED_SHIFT = 2;
+    private static final int DEFAULT_WORKERS = 2;
+    private static final long CLOSE_TIMEOUT_MILLIS = 2000;
+    
+    private final List<AlertSink> sinks;
+    private final AtomicBoolean[] failing;
+    private final BlockingQueue<TiltAlert> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private final int hysteresis;
+    private final long minIntervalMillis;
+    private final long repeatIntervalMillis;
+    private final byte[] levels;
+    private final long[] lastAlerts;
+    private final Object[] locks = new Object[STRIPES];
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile boolean closed;
+    
+    /**
+     * @param capacity максимальное количество сессий, номера сессий от 0 до capacity - 1
+     * @param sinks получатели оповещений
+     */
+    public TiltAlerter(int capacity, List<AlertSink> sinks) {
+        this(capacity, sinks, DEFAULT_QUEUE_CAPACITY, DEFAULT_WORKERS, DEFAULT_HYSTERESIS,
+             DEFAULT_MIN_INTERVAL_MILLIS, DEFAULT_REPEAT_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * @param capacity максимальное количество сессий, номера сессий от 0 до capacity - 1
+     * @param sinks получатели оповещений
+     * @param queueCapacity сколько оповещений может ждать доставки, остальные отбрасываются
+     * @param workers количество потоков доставки
+     * @param hysteresis на сколько тильт должен уйти ниже границы состояния, чтобы уровень понизился
+     * @param minIntervalMillis минимальный интервал между оповещениями одного игрока
+     * @param repeatIntervalMillis через сколько напоминать о затяжном экстремальном тильте
+     */
+    public TiltAlerter(int capacity, List<AlertSink> sinks, int queueCapacity, int workers, int hysteresis,
+                       long minIntervalMillis, long repeatIntervalMillis) {
+        if (hysteresis < 0 || minIntervalMillis < 0 || repeatIntervalMillis < minIntervalMillis) {
+            throw new IllegalArgumentException("Некорректные интервалы оповещений");
+        }
+        this.sinks = List.copyOf(sinks);
+        this.failing = new AtomicBoolean[this.sinks.size()];
+        for (int i = 0; i < failing.length; i++) {
+            failing[i] = new AtomicBoolean();
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.hysteresis = hysteresis;
+        this.minIntervalMillis = minIntervalMillis;
+        this.repeatIntervalMillis = repeatIntervalMillis;
+        this.levels = new byte[capacity];
+        this.lastAlerts = new long[capacity];
+        // Первое оповещение игрока не подавляется, даже если часы начинаются с нуля
+        Arrays.fill(lastAlerts, Long.MIN_VALUE / 2);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        for (int i = 0; i < workers; i++) {
+            Thread worker = new Thread(this::deliverLoop, "tiltovozik-alerts-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            this.workers.add(worker);
+        }
+    }
+    
+    /**
+     * Учитывает новое значение тильта сессии. Не блокируется на доставке и не бросает исключений
+     * @param sessionId номер сессии
+     * @param tilt значение тильта после результата
+     * @param nowMillis текущее время в миллисекундах
+     */
+    public void observe(int sessionId, int tilt, long nowMillis) {
+        if (sessionId < 0 || sessionId >= levels.length) return;
+        
+        TiltAlert.Kind kind;
+        synchronized (locks[sessionId & (STRIPES - 1)]) {
+            int previous = levels[sessionId] & LEVEL_MASK;
+            int announced = levels[sessionId] >> ANNOUNCED_SHIFT;
+            int level = level(tilt, previous, hysteresis);
+            if (level == NONE) {
+                levels[sessionId] = NONE;
+                // Выход из объявленного эпизода не ограничивается, иначе получатель остался бы с тревогой
+                if (announced == NONE) return;
+                kind = TiltAlert.Kind.CLEARED;
+            } else {
+                // После снижения уровня повторное повышение объявляется заново
+                announced = Math.min(announced, level);
+                levels[sessionId] = (byte) (level | announced << ANNOUNCED_SHIFT);
+                if (level > announced) {
+                    // Подавленное ограничением повышение объявляется при первом результате после интервала
+                    kind = announced == NONE ? TiltAlert.Kind.ENTERED : TiltAlert.Kind.ESCALATED;
+                } else if (nowMillis - lastAlerts[sessionId] >= repeatIntervalMillis) {
+                    kind = TiltAlert.Kind.SUSTAINED;
+                } else {
+                    return;
+                }
+                if (nowMillis - lastAlerts[sessionId] < minIntervalMillis) {
+                    rateLimited.increment();
+                    return;
+                }
+                levels[sessionId] = (byte) (level | level << ANNOUNCED_SHIFT);
+                lastAlerts[sessionId] = nowMillis;
+            }
+        }
+        
+        if (queue.offer(new TiltAlert(kind, sessionId, tilt, nowMillis))) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+    
+    /**
+     * Вычисляет уровень тревоги с гистерезисом: повышение сразу по границе состояния,
+     * понижение только ниже границы на запас hysteresis
+     */
+    static int level(int tilt, int current, int hysteresis) {
+        int raw = tilt >= TiltState.APOCALYPSE.getMinValue() ? APOCALYPSE
+            : tilt >= TiltState.RAGE.getMinValue() ? RAGE : NONE;
+        int level = current;
+        while (level > raw && tilt < boundary(level) - hysteresis) {
+            level--;
+        }
+        return Math.max(level, raw);
+    }
+    
+    private static int boundary(int level) {
+        return level == APOCALYPSE ? TiltState.APOCALYPSE.getMinValue() : TiltState.RAGE.getMinValue();
+    }
+    
+    private void deliverLoop() {
+        while (!closed || !queue.isEmpty()) {
+            TiltAlert alert;
+            try {
+                alert = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (alert != null) {
+                deliver(alert);
+            }
+        }
+    }
+    
+    private void deliver(TiltAlert alert) {
+        for (int i = 0; i < sinks.size(); i++) {
+            AlertSink sink = sinks.get(i);
+            try {
+                sink.deliver(alert);
+                delivered.increment();
+                if (failing[i].compareAndSet(true, false)) {
+                    System.err.println("Доставка оповещений восстановлена: " + sink.name());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                failed.increment();
+                // Сообщаем только о первой ошибке подряд, чтобы недоступный получатель не засорял вывод
+                if (failing[i].compareAndSet(false, true)) {
+                    System.err.println("Ошибка доставки оповещения (" + sink.name() + "): " + e.getMessage());
+                }
+            }
+        }
+    }
+    
+    /**
+     * Возвращает количество оповещений, ожидающих доставки
+     */
+    public int pending() {
+        return queue.size();
+    }
+    
+    /**
+     * Возвращает строку со счетчиками оповещений
+     */
+    public String summary() {
+        return String.format("оповещений %d, доставок %d, ошибок %d, отброшено %d, подавлено %d",
+                             enqueued.sum(), delivered.sum(), failed.sum(), dropped.sum(), rateLimited.sum());
+    }
+    
+    /**
+     * Доставляет оставшиеся в очереди оповещения, ожидая не дольше двух секунд, и закрывает получателей
+     */
+    @Override
+    public void close() {
+        closed = true;
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+        for (Thread worker : workers) {
+            try {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            worker.interrupt();
+        }
+        for (AlertSink sink : sinks) {
+            sink.close();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Пакетная классификация значений тильта для аналитики.
+ * За один проход превращает массив значений в порядковые номера TiltState
+ * и строит гистограмму по состояниям
+ */
+public final class TiltClassifier {
+    private static final int STATE_COUNT = TiltState.values().length;
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+    
+    private TiltClassifier() {
+    }
+    
+    /**
+     * Классифицирует значения тильта в одном потоке
+     * @param values значения тильта
+     * @param ordinals массив для порядковых номеров состояний той же длины или null, если нужна только гистограмма
+     * @return гистограмма: количество значений для каждого TiltState по его ordinal()
+     */
+    public static long[] classify(int[] values, byte[] ordinals) {
+        checkLength(values, ordinals);
+        long[] histogram = new long[STATE_COUNT];
+        classifyRange(values, ordinals, 0, values.length, histogram);
+        return histogram;
+    }
+    
+    /**
+     * Классифицирует значения тильта параллельно в общем пуле fork-join
+     * @param values значения тильта
+     * @param ordinals массив для порядковых номеров состояний той же длины или null, если нужна только гистограмма
+     * @return гистограмма: количество значений для каждого TiltState по его ordinal()
+     */
+    public static long[] classifyParallel(int[] values, byte[] ordinals) {
+        return classifyParallel(values, ordinals, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Классифицирует значения тильта параллельно в указанном пуле fork-join
+     */
+    public static long[] classifyParallel(int[] values, byte[] ordinals, ForkJoinPool pool) {
+        checkLength(values, ordinals);
+        return pool.invoke(new ClassifyTask(values, ordinals, 0, values.length));
+    }
+    
+    private static void classifyRange(int[] values, byte[] ordinals, int from, int to, long[] histogram) {
+        if (ordinals == null) {
+            for (int i = from; i < to; i++) {
+                histogram[TiltState.ordinalOf(values[i])]++;
+            }
+            return;
+        }
+        for (int i = from; i < to; i++) {
+            int ordinal = TiltState.ordinalOf(values[i]);
+            ordinals[i] = (byte) ordinal;
+            histogram[ordinal]++;
+        }
+    }
+    
+    private static void checkLength(int[] values, byte[] ordinals) {
+        if (ordinals != null && ordinals.length < values.length) {
+            throw new IllegalArgumentException("Массив состояний короче массива значений: "
+                                               + ordinals.length + " < " + values.length);
+        }
+    }
+    
+    private static final class ClassifyTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+        
+        private final int[] values;
+        private final byte[] ordinals;
+        private final int from;
+        private final int to;
+        
+        ClassifyTask(int[] values, byte[] ordinals, int from, int to) {
+            this.values = values;
+            this.ordinals = ordinals;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected long[] compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                long[] histogram = new long[STATE_COUNT];
+                classifyRange(values, ordinals, from, to, histogram);
+                return histogram;
+            }
+            int middle = (from + to) >>> 1;
+            ClassifyTask left = new ClassifyTask(values, ordinals, from, middle);
+            left.fork();
+            long[] histogram = new ClassifyTask(values, ordinals, middle, to).compute();
+            long[] leftHistogram = left.join();
+            for (int i = 0; i < STATE_COUNT; i++) {
+                histogram[i] += leftHistogram[i];
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Движок тильта без UI, отслеживающий множество игровых сессий.
+ * Значения хранятся в примитивных массивах, индексированных номером сессии,
+ * изменения одной сессии сериализуются блокировкой ее полосы (lock striping),
+ * чтение не блокируется. Изменение тильта после матча и остывание задает TiltModel
+ */
+public final class TiltEngine {
+    public static final int MIN_TILT = -200;
+    public static final int MAX_TILT = 200;
+    
+    private static final int STRIPES = 64;
+    private static final VarHandle TILT = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle EXACT_TILT = MethodHandles.arrayElementVarHandle(double[].class);
+    private static final VarHandle STATE = MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final VarHandle LAST_EVENT = MethodHandles.arrayElementVarHandle(long[].class);
+    
+    private final TiltModel model;
+    private final LongSupplier clock;
+    private final boolean decays;
+    private final int[] tilts;
+    // Тильт после последнего события без округления, только для моделей с остыванием:
+    // иначе округление при каждом событии съедало бы остывание целиком или добавляло лишнее
+    private final double[] exactTilts;
+    private final byte[] states;
+    private final long[] lastEvents;
+    private final int[] streaks;
+    private final Object[] locks = new Object[STRIPES];
+    
+    /**
+     * Создает движок с классической моделью тильта
+     * @param capacity максимальное количество сессий, номера сессий от 0 до capacity - 1
+     */
+    public TiltEngine(int capacity) {
+        this(capacity, TiltModel.classic());
+    }
+    
+    /**
+     * @param capacity максимальное количество сессий, номера сессий от 0 до capacity - 1
+     * @param model модель изменения и остывания тильта
+     */
+    public TiltEngine(int capacity, TiltModel model) {
+        this(capacity, model, System::currentTimeMillis);
+    }
+    
+    /**
+     * @param capacity максимальное количество сессий, номера сессий от 0 до capacity - 1
+     * @param model модель изменения и остывания тильта
+     * @param clock источник времени в миллисекундах для остывания
+     */
+    public TiltEngine(int capacity, TiltModel model, LongSupplier clock) {
+        this.model = Objects.requireNonNull(model, "model");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.decays = model.decays();
+        this.tilts = new int[capacity];
+        this.exactTilts = decays ? new double[capacity] : null;
+        this.states = new byte[capacity];
+        this.lastEvents = new long[capacity];
+        this.streaks = new int[capacity];
+        Arrays.fill(states, (byte) TiltState.NEUTRAL.ordinal());
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+    
+    /**
+     * Учитывает победу, изменение тильта определяет модель
+     * @return новое значение тильта сессии
+     */
+    public int recordWin(int sessionId) {
+        return tiltAfter(recordResult(sessionId, true));
+    }
+    
+    /**
+     * Учитывает поражение, изменение тильта определяет модель
+     * @return новое значение тильта сессии
+     */
+    public int recordLose(int sessionId) {
+        return tiltAfter(recordResult(sessionId, false));
+    }
+    
+    /**
+     * Учитывает результат и возвращает тильт до и после него, прочитанные под той же блокировкой,
+     * что и изменение. Нужен для журнала: тильт, прочитанный отдельно до вызова, при параллельных
+     * результатах той же сессии не совпадает с тем, к которому применено изменение
+     * @return оба значения в одном long, разбираются через tiltBefore и tiltAfter
+     */
+    public long recordResult(int sessionId, boolean isWin) {
+        return record(sessionId, isWin);
+    }
+    
+    /**
+     * Тильт перед результатом из значения recordResult, с учетом остывания к моменту результата
+     */
+    public static int tiltBefore(long result) {
+        return (int) (result >> 32);
+    }
+    
+    /**
+     * Тильт после результата из значения recordResult
+     */
+    public static int tiltAfter(long result) {
+        return (int) result;
+    }
+    
+    /**
+     * Устанавливает значение тильта сессии, ограничивая его диапазоном MIN_TILT..MAX_TILT.
+     * Серия результатов сбрасывается, остывание отсчитывается от текущего момента
+     */
+    public void setTilt(int sessionId, int value) {
+        setTilt(sessionId, value, clock.getAsLong());
+    }
+    
+    /**
+     * Устанавливает значение тильта сессии на заданный момент, например при воспроизведении журнала
+     * @param timeMillis момент, от которого отсчитывается остывание
+     */
+    public void setTilt(int sessionId, int value, long timeMillis) {
+        Objects.checkIndex(sessionId, tilts.length);
+        synchronized (lockFor(sessionId)) {
+            streaks[sessionId] = 0;
+            store(sessionId, clamp(value), timeMillis);
+        }
+    }
+    
+    /**
+     * Возвращает текущее значение тильта сессии с учетом остывания
+     */
+    public int tiltOf(int sessionId) {
+        if (!decays) {
+            return (int) TILT.getAcquire(tilts, sessionId);
+        }
+        return round(decayed(sessionId, clock.getAsLong()));
+    }
+    
+    /**
+     * Возвращает текущее состояние тильта сессии с учетом остывания
+     */
+    public TiltState stateOf(int sessionId) {
+        if (decays) {
+            return TiltState.fromValue(tiltOf(sessionId));
+        }
+        return TiltState.ofOrdinal((byte) STATE.getAcquire(states, sessionId));
+    }
+    
+    /**
+     * Возвращает длину текущей серии: положительную для побед, отрицательную для поражений
+     */
+    public int streakOf(int sessionId) {
+        synchronized (lockFor(sessionId)) {
+            return streaks[sessionId];
+        }
+    }
+    
+    /**
+     * Копирует текущие значения тильта всех сессий с учетом остывания
+     * @param target массив для значений, копируется не больше target.length сессий
+     * @return количество скопированных значений
+     */
+    public int copyTilts(int[] target) {
+        int count = Math.min(target.length, tilts.length);
+        long now = decays ? clock.getAsLong() : 0;
+        for (int i = 0; i < count; i++) {
+            target[i] = decays ? round(decayed(i, now)) : (int) TILT.getAcquire(tilts, i);
+        }
+        return count;
+    }
+    
+    /**
+     * Возвращает модель тильта движка
+     */
+    public TiltModel model() {
+        return model;
+    }
+    
+    /**
+     * Возвращает максимальное количество сессий
+     */
+    public int capacity() {
+        return tilts.length;
+    }
+    
+    private long record(int sessionId, boolean isWin) {
+        Objects.checkIndex(sessionId, tilts.length);
+        int current;
+        int value;
+        int streak;
+        synchronized (lockFor(sessionId)) {
+            long now = decays ? clock.getAsLong() : 0;
+            // Остывание за простой фиксируется перед применением результата, дробная часть сохраняется
+            double exact = decays ? decayed(sessionId, now) : tilts[sessionId];
+            current = round(exact);
+            streak = nextStreak(streaks[sessionId], isWin);
+            int delta = model.delta(current, isWin, streakRun(streaks[sessionId], isWin), ThreadLocalRandom.current());
+            double next = Math.max(MIN_TILT, Math.min(MAX_TILT, exact + delta));
+            value = round(next);
+            streaks[sessionId] = streak;
+            store(sessionId, next, now);
+        }
+        // События JFR фиксируются вне блокировки полосы
+        Telemetry.tiltChanged(sessionId, isWin, current, value, streak);
+        return ((long) current << 32) | (value & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Возвращает, сколько матчей с таким же результатом было подряд перед этим
+     * @param streak текущая серия: положительная для побед, отрицательная для поражений
+     */
+    static int streakRun(int streak, boolean isWin) {
+        return isWin ? Math.max(streak, 0) : Math.max(-streak, 0);
+    }
+    
+    /**
+     * Возвращает серию после очередного результата
+     */
+    static int nextStreak(int streak, boolean isWin) {
+        if (isWin) {
+            return streak > 0 && streak < Integer.MAX_VALUE ? streak + 1 : 1;
+        }
+        return streak < 0 && streak > -Integer.MAX_VALUE ? streak - 1 : -1;
+    }
+    
+    private double decayed(int sessionId, long now) {
+        // Тильт и время события читаются без блокировки: при гонке с записью значение на мгновение
+        // может учесть простой чуть неточно, следующее чтение уже согласовано
+        double tilt = (double) EXACT_TILT.getAcquire(exactTilts, sessionId);
+        long lastEvent = (long) LAST_EVENT.getAcquire(lastEvents, sessionId);
+        return model.decay(tilt, now - lastEvent);
+    }
+    
+    private void store(int sessionId, double exact, long timeMillis) {
+        int value = round(exact);
+        LAST_EVENT.setRelease(lastEvents, sessionId, timeMillis);
+        if (decays) {
+            EXACT_TILT.setRelease(exactTilts, sessionId, exact);
+        }
+        STATE.setRelease(states, sessionId, (byte) TiltState.ordinalOf(value));
+        TILT.setRelease(tilts, sessionId, value);
+    }
+    
+    /**
+     * Округляет дробный тильт до значения для выдачи в пределах MIN_TILT..MAX_TILT
+     */
+    static int round(double tilt) {
+        return clamp((int) Math.round(tilt));
+    }
+    
+    private Object lockFor(int sessionId) {
+        return locks[sessionId & (STRIPES - 1)];
+    }
+    
+    static int clamp(int value) {
+        return Math.max(MIN_TILT, Math.min(MAX_TILT, value));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * События JDK Flight Recorder приложения. Пока запись не идет, создание события
+ * и проверка isEnabled() сводятся JIT-компилятором почти к нулю
+ */
+final class TiltEvents {
+    
+    private TiltEvents() {
+    }
+    
+    @Name("ai.generated.tiltovozik.TiltChange")
+    @Label("Tilt Change")
+    @Category({"Tiltovozik", "Tilt"})
+    @Description("Изменение тильта после матча")
+    @StackTrace(false)
+    static final class TiltChange extends Event {
+        @Label("Session")
+        int sessionId;
+        @Label("Win")
+        boolean win;
+        @Label("Tilt Before")
+        int before;
+        @Label("Tilt After")
+        int after;
+        @Label("Streak")
+        int streak;
+    }
+    
+    @Name("ai.generated.tiltovozik.StateTransition")
+    @Label("Tilt State Transition")
+    @Category({"Tiltovozik", "Tilt"})
+    @Description("Переход тильта сессии в другое состояние")
+    @StackTrace(false)
+    static final class StateTransition extends Event {
+        @Label("Session")
+        int sessionId;
+        @Label("From")
+        String from;
+        @Label("To")
+        String to;
+    }
+    
+    @Name("ai.generated.tiltovozik.PhraseSelection")
+    @Label("Phrase Selection")
+    @Category({"Tiltovozik", "Phrases"})
+    @Description("Выбор и подстановка случайной фразы")
+    @StackTrace(false)
+    static final class PhraseSelection extends Event {
+        @Label("Win")
+        boolean win;
+        @Label("Phrase Index")
+        int index;
+        @Label("Corpus Size")
+        int corpusSize;
+    }
+    
+    @Name("ai.generated.tiltovozik.PhraseLoad")
+    @Label("Phrase Load")
+    @Category({"Tiltovozik", "Phrases"})
+    @Description("Загрузка набора фраз")
+    static final class PhraseLoad extends Event {
+        @Label("Source")
+        String source;
+        @Label("Win Phrases")
+        int winCount;
+        @Label("Lose Phrases")
+        int loseCount;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.Arrays;
+
+/**
+ * История значений тильта сессии во времени.
+ * Хранится в растущих примитивных массивах, без объектов на каждую точку,
+ * поэтому сотни тысяч точек занимают единицы мегабайт
+ */
+public final class TiltHistory {
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int[] tilts = new int[INITIAL_CAPACITY];
+    private int size;
+    
+    /**
+     * Добавляет точку. Время точек не должно убывать: более раннее время заменяется временем последней точки
+     * @param timeMillis момент изменения в миллисекундах
+     * @param tilt значение тильта после изменения
+     */
+    public synchronized void add(long timeMillis, int tilt) {
+        if (size == times.length) {
+            int capacity = size + (size >> 1);
+            times = Arrays.copyOf(times, capacity);
+            tilts = Arrays.copyOf(tilts, capacity);
+        }
+        times[size] = size > 0 ? Math.max(timeMillis, times[size - 1]) : timeMillis;
+        tilts[size] = tilt;
+        size++;
+    }
+    
+    public synchronized int size() {
+        return size;
+    }
+    
+    /**
+     * Возвращает время первой точки или 0, если история пуста
+     */
+    public synchronized long getFirstTime() {
+        return size > 0 ? times[0] : 0;
+    }
+    
+    /**
+     * Возвращает время последней точки или 0, если история пуста
+     */
+    public synchronized long getLastTime() {
+        return size > 0 ? times[size - 1] : 0;
+    }
+    
+    /**
+     * Прореживает точки интервала времени алгоритмом LTTB.
+     * В выборку попадает по одной соседней точке за границами интервала, чтобы линия доходила до краев
+     * @param fromMillis начало интервала
+     * @param toMillis конец интервала
+     * @param threshold максимальное количество точек, обычно ширина графика в пикселях
+     * @param outTimes массив для моментов времени длиной не меньше threshold
+     * @param outTilts массив для значений длиной не меньше threshold
+     * @return количество точек в выборке
+     */
+    public synchronized int downsample(long fromMillis, long toMillis, int threshold, long[] outTimes, int[] outTilts) {
+        int from = Math.max(0, lowerBound(fromMillis) - 1);
+        int to = Math.min(size, upperBound(toMillis) + 1);
+        if (from >= to) {
+            return 0;
+        }
+        return Lttb.downsample(times, tilts, from, to, threshold, outTimes, outTilts);
+    }
+    
+    /**
+     * Очищает историю, сохраняя выделенные массивы
+     */
+    public synchronized void clear() {
+        size = 0;
+    }
+    
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    private int upperBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (times[middle] <= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
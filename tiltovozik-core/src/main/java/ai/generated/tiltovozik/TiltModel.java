@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.ServiceLoader;
+import java.util.random.RandomGenerator;
+
+/**
+ * Модель динамики тильта: насколько меняется тильт после матча и как он остывает между матчами.
+ * Реализации находятся через ServiceLoader по имени, встроенные - classic, streak и decay
+ */
+public interface TiltModel {
+    
+    /**
+     * Возвращает имя модели для выбора в параметрах запуска
+     */
+    String name();
+    
+    /**
+     * Вычисляет изменение тильта после матча
+     * @param tilt тильт перед матчем с учетом остывания
+     * @param isWin true для победы, false для поражения
+     * @param streak сколько матчей с тем же результатом было подряд перед этим, 0 если серия прервалась
+     * @param random генератор случайных чисел текущего потока
+     * @return изменение тильта, итог ограничивается диапазоном TiltEngine.MIN_TILT..MAX_TILT
+     */
+    int delta(int tilt, boolean isWin, int streak, RandomGenerator random);
+    
+    /**
+     * Сообщает, меняется ли тильт со временем без матчей.
+     * Если нет, движок читает тильт без обращения к часам
+     */
+    default boolean decays() {
+        return false;
+    }
+    
+    /**
+     * Вычисляет тильт после простоя. Вызывается при чтении значения, а не по таймеру.
+     * Значение дробное: движок хранит его без округления и округляет только при выдаче
+     * @param tilt тильт после последнего события
+     * @param idleMillis время с последнего события
+     */
+    default double decay(double tilt, long idleMillis) {
+        return tilt;
+    }
+    
+    /**
+     * Возвращает модель по умолчанию
+     */
+    static TiltModel classic() {
+        return new ClassicTiltModel();
+    }
+    
+    /**
+     * Находит модель по имени среди зарегистрированных в META-INF/services
+     * @throws IllegalArgumentException если модели с таким именем нет
+     */
+    static TiltModel load(String name) {
+        for (TiltModel model : ServiceLoader.load(TiltModel.class)) {
+            if (model.name().equals(name)) {
+                return model;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестная модель тильта: " + name);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сохранение состояния движка тильта между запусками.
+ * Каждое событие пишется в журнал EventJournal, который фиксируется на диск пачками
+ * и по таймеру в фоновом потоке, поэтому запись события не ждет fsync. Периодически в фоне делается снимок,
+ * и при запуске воспроизводится только хвост журнала после последнего снимка. Снимок строится
+ * не из движка, а из предыдущего снимка и зафиксированных с тех пор записей журнала, поэтому
+ * в него никогда не попадает событие, которое может пропасть из журнала при сбое
+ */
+public final class TiltPersistence implements Closeable {
+    private static final String JOURNAL_FILE = "journal.bin";
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+    private static final long COMMIT_INTERVAL_MILLIS = 200;
+    
+    private final Path snapshotFile;
+    private final EventJournal journal;
+    private final TiltEngine engine;
+    private final long snapshotInterval;
+    private final ScheduledExecutorService background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tiltovozik-persistence");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long lastSnapshotSequence;
+    // Состояние на момент foldedSequence, меняется только в фоновом потоке, а до его запуска - при восстановлении
+    private final int[] foldedTilts;
+    private final long[] foldedTimes;
+    private long foldedSequence;
+    private volatile String username;
+    
+    /**
+     * Возвращает путь к журналу событий в каталоге хранилища
+     */
+    static Path journalFile(Path directory) {
+        return directory.resolve(JOURNAL_FILE);
+    }
+    
+    private TiltPersistence(Path directory, TiltEngine engine, long snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.journal = EventJournal.open(journalFile(directory));
+        this.engine = engine;
+        this.snapshotInterval = snapshotInterval;
+        this.foldedTilts = new int[engine.capacity()];
+        this.foldedTimes = new long[engine.capacity()];
+        journal.setBatchListener(this::requestCommit);
+        background.scheduleWithFixedDelay(journal::commit, COMMIT_INTERVAL_MILLIS,
+                                          COMMIT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Открывает хранилище в каталоге и восстанавливает в движок сохраненные значения тильта
+     * @param directory каталог для журнала и снимка
+     * @param engine движок, в который восстанавливается состояние
+     */
+    public static TiltPersistence open(Path directory, TiltEngine engine) throws IOException {
+        return open(directory, engine, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+    
+    /**
+     * Открывает хранилище в каталоге и восстанавливает в движок сохраненные значения тильта
+     * @param directory каталог для журнала и снимка
+     * @param engine движок, в который восстанавливается состояние
+     * @param snapshotInterval через сколько событий делается очередной снимок
+     */
+    public static TiltPersistence open(Path directory, TiltEngine engine, long snapshotInterval) throws IOException {
+        TiltPersistence persistence = new TiltPersistence(directory, engine, snapshotInterval);
+        try {
+            persistence.restore();
+        } catch (IOException | RuntimeException e) {
+            persistence.close();
+            throw e;
+        }
+        return persistence;
+    }
+    
+    /**
+     * Записывает событие сессии в журнал
+     * @param sessionId номер сессии
+     * @param type тип события: EventJournal.WIN, LOSE или RESET
+     * @param delta изменение тильта
+     * @param tiltAfter значение тильта после события
+     * @param phraseIndex индекс показанной фразы или -1
+     * @return порядковый номер события
+     */
+    public synchronized long record(int sessionId, byte type, int delta, int tiltAfter, int phraseIndex) {
+        long sequence = journal.append(System.currentTimeMillis(), sessionId, type, delta, tiltAfter, phraseIndex);
+        if (sequence + 1 - lastSnapshotSequence >= snapshotInterval) {
+            lastSnapshotSequence = sequence + 1;
+            background.execute(this::writeSnapshotQuietly);
+        }
+        return sequence;
+    }
+    
+    /**
+     * Возвращает имя игрока, сохраненное в последнем снимке, или null
+     */
+    public String username() {
+        return username;
+    }
+    
+    /**
+     * Запоминает имя игрока и сохраняет его в снимке в фоне
+     */
+    public void setUsername(String username) {
+        this.username = username;
+        try {
+            background.execute(this::writeSnapshotQuietly);
+        } catch (RejectedExecutionException e) {
+            // Хранилище закрывается, имя попадет в последний снимок при close
+        }
+    }
+    
+    /**
+     * Возвращает журнал событий
+     */
+    public EventJournal journal() {
+        return journal;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        background.shutdown();
+        try {
+            background.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writeSnapshot();
+        } finally {
+            journal.close();
+        }
+    }
+    
+    private void restore() throws IOException {
+        long started = System.nanoTime();
+        SessionSnapshot snapshot = SessionSnapshot.read(snapshotFile);
+        long from = 0;
+        if (snapshot != null) {
+            int[] tilts = snapshot.tilts();
+            int count = Math.min(tilts.length, engine.capacity());
+            System.arraycopy(tilts, 0, foldedTilts, 0, count);
+            if (snapshot.times() != null) {
+                System.arraycopy(snapshot.times(), 0, foldedTimes, 0, count);
+            } else {
+                // В снимках первой версии нет времени событий, остывание идет с момента записи снимка
+                Arrays.fill(foldedTimes, 0, count, Files.getLastModifiedTime(snapshotFile).toMillis());
+            }
+            from = snapshot.sequence();
+            username = snapshot.username();
+        }
+        // После открытия журнал содержит только зафиксированные записи
+        long end = journal.size();
+        foldedSequence = Math.min(from, end);
+        lastSnapshotSequence = foldedSequence;
+        fold(end);
+        for (int i = 0; i < foldedTilts.length; i++) {
+            engine.setTilt(i, foldedTilts[i], foldedTimes[i]);
+        }
+        System.out.printf("Восстановлено событий: %d из журнала после снимка, %.1f мс%n",
+                         Math.max(0, journal.size() - from), (System.nanoTime() - started) / 1e6);
+    }
+    
+    private void writeSnapshot() throws IOException {
+        // Номер снимка - число зафиксированных событий, а не размер журнала, прочитанный позже:
+        // событие, добавленное между ними, после сбоя могло бы пропасть, а его номер занял бы
+        // следующий результат, который воспроизведение снимка пропустило бы
+        long sequence = journal.commit();
+        fold(sequence);
+        SessionSnapshot.write(snapshotFile, sequence, username, foldedTilts, foldedTimes, foldedTilts.length);
+    }
+    
+    private void fold(long toSequence) {
+        // tiltAfter - абсолютное значение, поэтому последняя запись сессии определяет ее тильт
+        journal.replay(foldedSequence, toSequence, (sequence, timestamp, sessionId, type, delta, tiltAfter, phraseIndex) -> {
+            if (sessionId >= 0 && sessionId < foldedTilts.length) {
+                foldedTilts[sessionId] = tiltAfter;
+                foldedTimes[sessionId] = timestamp;
+            }
+        });
+        foldedSequence = Math.max(foldedSequence, toSequence);
+    }
+    
+    private void requestCommit() {
+        try {
+            background.execute(journal::commit);
+        } catch (RejectedExecutionException e) {
+            // Хранилище закрывается, оставшиеся записи зафиксирует close
+        }
+    }
+    
+    private void writeSnapshotQuietly() {
+        try {
+            writeSnapshot();
+        } catch (IOException e) {
+            System.err.println("Ошибка записи снимка: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,503 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Симулятор сессий методом Монте-Карло для подбора параметров тильта без UI.
+ * Сессии разбиваются на блоки фиксированного размера, у каждого блока свой поток SplittableRandom,
+ * выделенный из общего зерна заранее, поэтому результат не зависит от числа потоков и
+ * одинаков для одного зерна. Блоки обрабатываются в пуле fork-join, результаты складываются.
+ * Запуск: java -cp tiltovozik.jar ai.generated.tiltovozik.TiltSimulator [сессий] [игр] [винрейт] [зерно] [модель] [потоков] [победа] [поражение]
+ * [--bands=-150,-100,-50,0,1,50,100,150] [--histogram=10], где победа и поражение — диапазоны изменения тильта
+ * классической модели вида 1-5 и 2-10, --bands — нижние границы состояний TiltState начиная со второго,
+ * а --histogram печатает число матчей по значениям тильта с заданным шагом
+ */
+public final class TiltSimulator {
+    private static final int SESSIONS_PER_BLOCK = 4096;
+    private static final int MAX_RECOVERY = 1000;
+    private static final int RECOVERED_TILT = 0;
+    private static final long DEFAULT_GAME_INTERVAL_MILLIS = 25 * 60 * 1000;
+    private static final boolean[] EXTREME = createExtremeFlags();
+    
+    private final TiltModel model;
+    private final int sessions;
+    private final int gamesPerSession;
+    private final double winRate;
+    private final int startTilt;
+    private final long gameIntervalMillis;
+    // Нижняя граница каждого состояния и состояние для каждого значения тильта
+    private final int[] bounds;
+    private final byte[] ordinals;
+    
+    /**
+     * @param model модель тильта, та же, что использует TiltEngine
+     * @param sessions количество сессий
+     * @param gamesPerSession количество матчей в сессии
+     * @param winRate вероятность победы в матче
+     * @param startTilt тильт в начале сессии
+     * @param gameIntervalMillis время между матчами для моделей с остыванием
+     */
+    public TiltSimulator(TiltModel model, int sessions, int gamesPerSession, double winRate,
+                         int startTilt, long gameIntervalMillis) {
+        this(model, sessions, gamesPerSession, winRate, startTilt, gameIntervalMillis, defaultBands());
+    }
+    
+    /**
+     * @param model модель тильта, та же, что использует TiltEngine
+     * @param sessions количество сессий
+     * @param gamesPerSession количество матчей в сессии
+     * @param winRate вероятность победы в матче
+     * @param startTilt тильт в начале сессии
+     * @param gameIntervalMillis время между матчами для моделей с остыванием
+     * @param bands проверяемые нижние границы состояний TiltState начиная со второго, по возрастанию;
+     *              первое состояние начинается с MIN_TILT, последнее заканчивается MAX_TILT
+     */
+    public TiltSimulator(TiltModel model, int sessions, int gamesPerSession, double winRate,
+                         int startTilt, long gameIntervalMillis, int[] bands) {
+        if (sessions < 0 || gamesPerSession < 0) {
+            throw new IllegalArgumentException("Количество сессий и матчей не может быть отрицательным");
+        }
+        if (winRate < 0 || winRate > 1) {
+            throw new IllegalArgumentException("Винрейт должен быть от 0 до 1: " + winRate);
+        }
+        this.model = model;
+        this.sessions = sessions;
+        this.gamesPerSession = gamesPerSession;
+        this.winRate = winRate;
+        this.startTilt = TiltEngine.clamp(startTilt);
+        this.gameIntervalMillis = gameIntervalMillis;
+        this.bounds = checkBands(bands);
+        this.ordinals = new byte[TiltEngine.MAX_TILT - TiltEngine.MIN_TILT + 1];
+        for (int state = 0, value = TiltEngine.MIN_TILT; value <= TiltEngine.MAX_TILT; value++) {
+            while (state + 1 < bounds.length && value >= bounds[state + 1]) {
+                state++;
+            }
+            ordinals[value - TiltEngine.MIN_TILT] = (byte) state;
+        }
+    }
+    
+    /**
+     * Возвращает нижние границы состояний TiltState начиная со второго, заданные в перечислении
+     */
+    public static int[] defaultBands() {
+        TiltState[] states = TiltState.values();
+        int[] bands = new int[states.length - 1];
+        for (int i = 1; i < states.length; i++) {
+            bands[i - 1] = states[i].getMinValue();
+        }
+        return bands;
+    }
+    
+    private static int[] checkBands(int[] bands) {
+        int[] bounds = new int[TiltState.values().length];
+        if (bands.length != bounds.length - 1) {
+            throw new IllegalArgumentException("Нужно " + (bounds.length - 1) + " границ состояний, задано " + bands.length);
+        }
+        bounds[0] = TiltEngine.MIN_TILT;
+        for (int i = 0; i < bands.length; i++) {
+            if (bands[i] <= bounds[i] || bands[i] > TiltEngine.MAX_TILT) {
+                throw new IllegalArgumentException("Границы состояний должны возрастать в пределах "
+                    + TiltEngine.MIN_TILT + ".." + TiltEngine.MAX_TILT + ": " + bands[i]);
+            }
+            bounds[i + 1] = bands[i];
+        }
+        return bounds;
+    }
+    
+    public static void main(String[] arguments) {
+        List<String> positional = new ArrayList<>();
+        int[] bands = defaultBands();
+        int histogramStep = 0;
+        for (String argument : arguments) {
+            if (argument.startsWith("--bands=")) {
+                bands = parseBands(argument.substring("--bands=".length()));
+            } else if (argument.equals("--histogram")) {
+                histogramStep = 10;
+            } else if (argument.startsWith("--histogram=")) {
+                histogramStep = Integer.parseInt(argument.substring("--histogram=".length()));
+            } else {
+                positional.add(argument);
+            }
+        }
+        String[] args = positional.toArray(new String[0]);
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        double winRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.5;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        String modelName = args.length > 4 ? args[4] : "classic";
+        int threads = args.length > 5 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        String winRange = args.length > 6 ? args[6] : null;
+        String loseRange = args.length > 7 ? args[7] : "2-10";
+        TiltModel model = winRange != null ? withRanges(modelName, winRange, loseRange) : TiltModel.load(modelName);
+        
+        TiltSimulator simulator = new TiltSimulator(model, sessions, games, winRate, 0, DEFAULT_GAME_INTERVAL_MILLIS, bands);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long started = System.nanoTime();
+            Report report = simulator.run(seed, pool);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            System.out.printf("Модель %s, сессий %d по %d игр, винрейт %.0f%%, зерно %d, потоков %d%n",
+                              model.name(), sessions, games, winRate * 100, seed, threads);
+            if (winRange != null) {
+                System.out.printf("Победа понижает тильт на %s, поражение повышает на %s%n", winRange, loseRange);
+            }
+            System.out.printf("Время: %.2f с (%.0f игр/с)%n", seconds, (double) sessions * games / seconds);
+            report.print();
+            if (histogramStep > 0) {
+                report.printHistogram(histogramStep);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Строит встроенную модель поверх классической с заданными диапазонами изменения тильта
+     * @param name имя модели: classic, streak или decay
+     * @param win диапазон понижения тильта после победы вида 1-5
+     * @param lose диапазон повышения тильта после поражения вида 2-10
+     */
+    static TiltModel withRanges(String name, String win, String lose) {
+        int[] winRange = parseRange(win);
+        int[] loseRange = parseRange(lose);
+        ClassicTiltModel classic = new ClassicTiltModel(winRange[0], winRange[1], loseRange[0], loseRange[1]);
+        return switch (name) {
+            case "classic" -> classic;
+            case "streak" -> new StreakTiltModel(classic);
+            case "decay" -> new DecayingTiltModel(classic);
+            default -> throw new IllegalArgumentException("Диапазоны задаются только для classic, streak и decay: " + name);
+        };
+    }
+    
+    private static int[] parseBands(String list) {
+        String[] parts = list.split(",");
+        int[] bands = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            bands[i] = Integer.parseInt(parts[i].trim());
+        }
+        return bands;
+    }
+    
+    private static int[] parseRange(String range) {
+        int dash = range.indexOf('-', 1);
+        if (dash < 0) {
+            throw new IllegalArgumentException("Диапазон задается как мин-макс: " + range);
+        }
+        return new int[] {Integer.parseInt(range.substring(0, dash)), Integer.parseInt(range.substring(dash + 1))};
+    }
+    
+    /**
+     * Запускает симуляцию в указанном пуле
+     * @param seed зерно: одно и то же зерно дает один и тот же отчет при любом числе потоков
+     */
+    public Report run(long seed, ForkJoinPool pool) {
+        int blocks = (sessions + SESSIONS_PER_BLOCK - 1) / SESSIONS_PER_BLOCK;
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[blocks];
+        for (int i = 0; i < blocks; i++) {
+            randoms[i] = root.split();
+        }
+        return pool.invoke(new SimulateTask(randoms, 0, blocks));
+    }
+    
+    private void simulateBlock(int block, SplittableRandom random, Report report) {
+        int from = block * SESSIONS_PER_BLOCK;
+        int to = Math.min(sessions, from + SESSIONS_PER_BLOCK);
+        boolean decays = model.decays();
+        
+        for (int session = from; session < to; session++) {
+            int tilt = startTilt;
+            double exact = startTilt;
+            int streak = 0;
+            boolean inExtreme = false;
+            boolean reachedExtreme = false;
+            int recovery = 0;
+            
+            for (int game = 0; game < gamesPerSession; game++) {
+                // Та же последовательность, что в TiltEngine.recordWin/recordLose
+                if (decays) {
+                    exact = model.decay(exact, gameIntervalMillis);
+                    tilt = TiltEngine.round(exact);
+                }
+                boolean isWin = random.nextDouble() < winRate;
+                int delta = model.delta(tilt, isWin, TiltEngine.streakRun(streak, isWin), random);
+                if (decays) {
+                    exact = Math.max(TiltEngine.MIN_TILT, Math.min(TiltEngine.MAX_TILT, exact + delta));
+                    tilt = TiltEngine.round(exact);
+                } else {
+                    tilt = TiltEngine.clamp(tilt + delta);
+                }
+                streak = TiltEngine.nextStreak(streak, isWin);
+                report.values[tilt - TiltEngine.MIN_TILT]++;
+                
+                if (inExtreme) {
+                    recovery++;
+                    if (tilt <= RECOVERED_TILT) {
+                        report.recoveries[Math.min(recovery, MAX_RECOVERY)]++;
+                        inExtreme = false;
+                    }
+                } else if (EXTREME[ordinals[tilt - TiltEngine.MIN_TILT]]) {
+                    inExtreme = true;
+                    reachedExtreme = true;
+                    recovery = 0;
+                    report.extremeEpisodes++;
+                }
+            }
+            if (inExtreme) {
+                report.unrecovered++;
+            }
+            if (reachedExtreme) {
+                report.sessionsWithExtreme++;
+            }
+        }
+        report.sessions += to - from;
+    }
+    
+    private static boolean[] createExtremeFlags() {
+        TiltState[] states = TiltState.values();
+        boolean[] flags = new boolean[states.length];
+        for (TiltState state : states) {
+            flags[state.ordinal()] = state.isExtreme();
+        }
+        return flags;
+    }
+    
+    /**
+     * Итоги симуляции. Все величины - целочисленные счетчики, поэтому сложение частичных отчетов
+     * не зависит от порядка и результат детерминирован. Состояния считаются по границам симулятора
+     */
+    public static final class Report {
+        private final int[] bounds;
+        private final long[] values = new long[TiltEngine.MAX_TILT - TiltEngine.MIN_TILT + 1];
+        private final long[] recoveries = new long[MAX_RECOVERY + 1];
+        private long sessions;
+        private long extremeEpisodes;
+        private long sessionsWithExtreme;
+        private long unrecovered;
+        
+        private Report(int[] bounds) {
+            this.bounds = bounds;
+        }
+        
+        /**
+         * Возвращает, сколько матчей сессии закончились со значением тильта value
+         */
+        public long gamesAtTilt(int value) {
+            return values[value - TiltEngine.MIN_TILT];
+        }
+        
+        /**
+         * Возвращает долю матчей, после которых тильт был в указанном состоянии
+         */
+        public double timeInState(TiltState state) {
+            long inState = 0;
+            for (int value = minValue(state); value <= maxValue(state); value++) {
+                inState += gamesAtTilt(value);
+            }
+            long total = totalGames();
+            return total == 0 ? 0 : (double) inState / total;
+        }
+        
+        /**
+         * Возвращает нижнюю границу состояния, по которой шел подсчет
+         */
+        public int minValue(TiltState state) {
+            return bounds[state.ordinal()];
+        }
+        
+        /**
+         * Возвращает верхнюю границу состояния, по которой шел подсчет
+         */
+        public int maxValue(TiltState state) {
+            int next = state.ordinal() + 1;
+            return next < bounds.length ? bounds[next] - 1 : TiltEngine.MAX_TILT;
+        }
+        
+        /**
+         * Возвращает долю сессий, в которых хотя бы раз наступило экстремальное состояние
+         */
+        public double extremeSessionShare() {
+            return sessions == 0 ? 0 : (double) sessionsWithExtreme / sessions;
+        }
+        
+        /**
+         * Возвращает количество попаданий в экстремальное состояние
+         */
+        public long getExtremeEpisodes() {
+            return extremeEpisodes;
+        }
+        
+        /**
+         * Возвращает количество попаданий в экстремальное состояние, из которых сессия не вышла до конца
+         */
+        public long getUnrecovered() {
+            return unrecovered;
+        }
+        
+        /**
+         * Возвращает перцентиль числа матчей от входа в экстремальное состояние до тильта не выше нуля.
+         * Значения больше MAX_RECOVERY учитываются как MAX_RECOVERY
+         * @param percentile от 0 до 100
+         * @return количество матчей или -1, если восстановлений не было
+         */
+        public int recoveryPercentile(double percentile) {
+            long total = 0;
+            for (long count : recoveries) {
+                total += count;
+            }
+            if (total == 0) {
+                return -1;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int games = 0; games < recoveries.length; games++) {
+                seen += recoveries[games];
+                if (seen >= rank) {
+                    return games;
+                }
+            }
+            return MAX_RECOVERY;
+        }
+        
+        /**
+         * Возвращает среднее число матчей до восстановления или NaN, если восстановлений не было
+         */
+        public double recoveryMean() {
+            long total = 0;
+            long sum = 0;
+            for (int games = 0; games < recoveries.length; games++) {
+                total += recoveries[games];
+                sum += games * recoveries[games];
+            }
+            return total == 0 ? Double.NaN : (double) sum / total;
+        }
+        
+        private long totalGames() {
+            long total = 0;
+            for (long count : values) {
+                total += count;
+            }
+            return total;
+        }
+        
+        private void add(Report other) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] += other.values[i];
+            }
+            for (int i = 0; i < recoveries.length; i++) {
+                recoveries[i] += other.recoveries[i];
+            }
+            sessions += other.sessions;
+            extremeEpisodes += other.extremeEpisodes;
+            sessionsWithExtreme += other.sessionsWithExtreme;
+            unrecovered += other.unrecovered;
+        }
+        
+        /**
+         * Печатает отчет в стандартный вывод
+         */
+        public void print() {
+            System.out.println("Время в состояниях:");
+            double extremeShare = 0;
+            for (TiltState state : TiltState.values()) {
+                double share = timeInState(state);
+                if (state.isExtreme()) {
+                    extremeShare += share;
+                }
+                System.out.printf("  %-26s %4d..%-4d %6.2f%% %s%n", state.getFullDisplayName(),
+                                  minValue(state), maxValue(state), share * 100,
+                                  "#".repeat((int) Math.round(share * 50)));
+            }
+            System.out.printf("Экстремальные состояния: %.2f%% матчей, в %.2f%% сессий, %.3f попаданий на сессию%n",
+                              extremeShare * 100, extremeSessionShare() * 100,
+                              sessions == 0 ? 0 : (double) extremeEpisodes / sessions);
+            System.out.printf("Восстановление до тильта <= %d: в среднем %.1f игр, p50 %d, p90 %d, p99 %d; не восстановились %d%n",
+                              RECOVERED_TILT, recoveryMean(), recoveryPercentile(50), recoveryPercentile(90),
+                              recoveryPercentile(99), unrecovered);
+        }
+        
+        /**
+         * Печатает число матчей по значениям тильта, сложенное в интервалы заданной ширины
+         * @param step ширина интервала
+         */
+        public void printHistogram(int step) {
+            if (step <= 0) {
+                throw new IllegalArgumentException("Шаг гистограммы должен быть положительным: " + step);
+            }
+            long total = totalGames();
+            long largest = 1;
+            for (int from = TiltEngine.MIN_TILT; from <= TiltEngine.MAX_TILT; from += step) {
+                largest = Math.max(largest, gamesBetween(from, Math.min(TiltEngine.MAX_TILT, from + step - 1)));
+            }
+            System.out.println("Матчи по значению тильта:");
+            for (int from = TiltEngine.MIN_TILT; from <= TiltEngine.MAX_TILT; from += step) {
+                int to = Math.min(TiltEngine.MAX_TILT, from + step - 1);
+                long games = gamesBetween(from, to);
+                System.out.printf("  %4d..%-4d %12d %6.2f%% %s%n", from, to, games,
+                                  total == 0 ? 0 : games * 100.0 / total, "#".repeat((int) (games * 50 / largest)));
+            }
+        }
+        
+        private long gamesBetween(int from, int to) {
+            long games = 0;
+            for (int value = from; value <= to; value++) {
+                games += gamesAtTilt(value);
+            }
+            return games;
+        }
+    }
+    
+    private final class SimulateTask extends RecursiveTask<Report> {
+        private static final long serialVersionUID = 1L;
+        
+        private final SplittableRandom[] randoms;
+        private final int from;
+        private final int to;
+        
+        SimulateTask(SplittableRandom[] randoms, int from, int to) {
+            this.randoms = randoms;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected Report compute() {
+            if (to - from <= 1) {
+                Report report = new Report(bounds);
+                for (int block = from; block < to; block++) {
+                    simulateBlock(block, randoms[block], report);
+                }
+                return report;
+            }
+            int middle = (from + to) >>> 1;
+            SimulateTask left = new SimulateTask(randoms, from, middle);
+            left.fork();
+            Report right = new SimulateTask(randoms, middle, to).compute();
+            Report result = left.join();
+            result.add(right);
+            return result;
+        }
+    }
+}
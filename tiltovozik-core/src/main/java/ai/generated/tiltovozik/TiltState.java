@@ -32,6 +32,10 @@ public enum TiltState {
     RAGE(100, 149, "ЯРОСТЬ", "🔥", "#e74c3c"),
     APOCALYPSE(150, 200, "АПОКАЛИПСИС", "☠", "#8b0000");
     
+    private static final TiltState[] VALUES = values();
+    private static final int LOOKUP_MIN = VALUES[0].minValue;
+    private static final byte[] LOOKUP = buildLookup();
+    
     private final int minValue;
     private final int maxValue;
     private final String displayName;
@@ -47,17 +51,47 @@ public enum TiltState {
     }
     
     /**
-     * Определяет состояние тильта по числовому значению
-     * @param значение тильта от -200 до 200
+     * Определяет состояние тильта по числовому значению за O(1) без выделения памяти
+     * @param value значение тильта от -200 до 200
      * @return соответствующее состояние тильта
      */
     public static TiltState fromValue(int value) {
-        for (TiltState state : values()) {
-            if (value >= state.minValue && value <= state.maxValue) {
-                return state;
+        return VALUES[ordinalOf(value)];
+    }
+    
+    /**
+     * Возвращает порядковый номер состояния для значения тильта.
+     * Значения вне диапазона считаются нейтральными
+     */
+    static int ordinalOf(int value) {
+        int index = value - LOOKUP_MIN;
+        if (index < 0 || index >= LOOKUP.length) {
+            return NEUTRAL.ordinal();
+        }
+        return LOOKUP[index];
+    }
+    
+    /**
+     * Возвращает состояние по порядковому номеру без копирования массива values()
+     */
+    static TiltState ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+    
+    private static byte[] buildLookup() {
+        int max = VALUES[VALUES.length - 1].maxValue;
+        byte[] lookup = new byte[max - LOOKUP_MIN + 1];
+        for (int value = LOOKUP_MIN; value <= max; value++) {
+            TiltState match = NEUTRAL;
+            for (TiltState state : VALUES) {
+                if (value >= state.minValue && value <= state.maxValue) {
+                    match = state;
+                    break;
+                }
             }
+            lookup[value - LOOKUP_MIN] = (byte) match.ordinal();
         }
-        return NEUTRAL;
+        return lookup;
     }
     
     /**
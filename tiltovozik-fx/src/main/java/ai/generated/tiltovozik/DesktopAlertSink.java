@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.awt.AWTException;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.SystemTray;
+import java.awt.TrayIcon;
+import java.awt.image.BufferedImage;
+
+/**
+ * Показывает оповещения системными уведомлениями через значок в области уведомлений.
+ * JavaFX не умеет показывать уведомления рабочего стола, поэтому используется AWT.
+ * Значок создается при первом оповещении в потоке доставки, а не при запуске приложения.
+ * Без поддержки области уведомлений доставка завершается ошибкой, о которой TiltAlerter сообщает один раз
+ */
+public final class DesktopAlertSink implements AlertSink {
+    private TrayIcon trayIcon;
+    
+    @Override
+    public String name() {
+        return "уведомления рабочего стола";
+    }
+    
+    @Override
+    public synchronized void deliver(TiltAlert alert) throws AWTException {
+        if (trayIcon == null) {
+            // Проверка загружает AWT, поэтому делается при первом оповещении, а не при запуске
+            if (!SystemTray.isSupported()) {
+                throw new UnsupportedOperationException("область уведомлений не поддерживается");
+            }
+            trayIcon = new TrayIcon(createImage(), "Tiltovozik");
+            trayIcon.setImageAutoSize(true);
+            SystemTray.getSystemTray().add(trayIcon);
+        }
+        TrayIcon.MessageType type = alert.getKind() == TiltAlert.Kind.CLEARED
+            ? TrayIcon.MessageType.INFO
+            : TrayIcon.MessageType.WARNING;
+        trayIcon.displayMessage("🔥 Tiltovozik", alert.getMessage(), type);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (trayIcon != null) {
+            SystemTray.getSystemTray().remove(trayIcon);
+            trayIcon = null;
+        }
+    }
+    
+    private static BufferedImage createImage() {
+        BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.decode(TiltState.RAGE.getColor()));
+        graphics.fillOval(1, 1, 14, 14);
+        graphics.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Объединяет запросы на перерисовку из любых потоков в не более чем одну перерисовку за кадр.
+ * Пока поступают изменения, работает AnimationTimer, вызываемый один раз на каждый пульс JavaFX;
+ * Platform.runLater используется только для его запуска после простоя
+ */
+public final class FxUpdateCoalescer {
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong requestedNanos = new AtomicLong();
+    private final Runnable render;
+    private final AnimationTimer timer;
+    
+    /**
+     * Создается в потоке JavaFX
+     * @param render перерисовка, выполняемая в потоке JavaFX
+     */
+    public FxUpdateCoalescer(Runnable render) {
+        this.render = render;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                onPulse();
+            }
+        };
+    }
+    
+    /**
+     * Помечает состояние измененным. Можно вызывать из любого потока
+     */
+    public void requestRender() {
+        long started = Telemetry.start();
+        if (started != 0) {
+            // Задержка пульса отсчитывается от первого запроса, который ждет перерисовки
+            requestedNanos.compareAndSet(0, started);
+        }
+        dirty.set(true);
+        if (running.compareAndSet(false, true)) {
+            Platform.runLater(timer::start);
+        }
+    }
+    
+    private void onPulse() {
+        if (dirty.getAndSet(false)) {
+            Telemetry.record(Telemetry.PULSE_LAG, requestedNanos.getAndSet(0));
+            render.run();
+            return;
+        }
+        // Изменений за кадр не было: останавливаемся, но перепроверяем флаг,
+        // чтобы не потерять запрос, пришедший между проверкой и остановкой
+        timer.stop();
+        running.set(false);
+        if (dirty.get() && running.compareAndSet(false, true)) {
+            timer.start();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Тренировочный запуск для архива совместного использования классов (CDS).
+ * Проходит путь запуска приложения без окна: загружает фразы, восстанавливает сессию
+ * во временном каталоге и подгружает классы JavaFX без их инициализации,
+ * чтобы JVM сохранила их в архив при -XX:ArchiveClassesAtExit
+ */
+public final class StartupTraining {
+    private static final String[] FX_CLASSES = {
+        "javafx.application.Application",
+        "javafx.application.Platform",
+        "javafx.css.PseudoClass",
+        "javafx.geometry.Insets",
+        "javafx.scene.Scene",
+        "javafx.scene.control.Button",
+        "javafx.scene.control.ButtonType",
+        "javafx.scene.control.Dialog",
+        "javafx.scene.control.Label",
+        "javafx.scene.control.ProgressBar",
+        "javafx.scene.control.Spinner",
+        "javafx.scene.control.TextField",
+        "javafx.scene.control.skin.ButtonSkin",
+        "javafx.scene.control.skin.LabelSkin",
+        "javafx.scene.control.skin.ProgressBarSkin",
+        "javafx.scene.control.skin.SpinnerSkin",
+        "javafx.scene.control.skin.TextFieldSkin",
+        "javafx.scene.layout.GridPane",
+        "javafx.scene.layout.HBox",
+        "javafx.scene.layout.StackPane",
+        "javafx.scene.layout.VBox",
+        "javafx.stage.Stage",
+        "ai.generated.tiltovozik.TiltTrackerApp"
+    };
+    
+    private StartupTraining() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        PhraseManager phraseManager = new PhraseManager();
+        phraseManager.loadPhrases("phrases.tpack", "win_phrases.txt", "lose_phrases.txt");
+        PhraseHistory history = phraseManager.newHistory();
+        PhraseContext context = new PhraseContext().setUsername("Игрок");
+        Random random = new Random();
+        
+        Path directory = Files.createTempDirectory("tiltovozik-cds");
+        TiltEngine engine = new TiltEngine(1);
+        try (TiltPersistence persistence = TiltPersistence.open(directory, engine)) {
+            for (int i = 0; i < 100; i++) {
+                boolean isWin = i % 2 == 0;
+                long result = engine.recordResult(0, isWin);
+                int tilt = TiltEngine.tiltAfter(result);
+                context.setTilt(tilt);
+                phraseManager.getRandomPhrase(history, isWin, context, random);
+                persistence.record(0, isWin ? EventJournal.WIN : EventJournal.LOSE, tilt - TiltEngine.tiltBefore(result), tilt,
+                                   context.getLastPhraseIndex());
+            }
+        } finally {
+            // Журнал занимает несколько мегабайт, каждая сборка архива оставляла бы свой каталог
+            deleteRecursively(directory);
+        }
+        
+        ClassLoader loader = StartupTraining.class.getClassLoader();
+        for (String name : FX_CLASSES) {
+            Class.forName(name, false, loader);
+        }
+        System.out.println("Тренировочный запуск для CDS завершен");
+    }
+    
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            System.err.println("Не удалось удалить временный каталог " + directory + ": " + e.getMessage());
+        }
+    }
+}
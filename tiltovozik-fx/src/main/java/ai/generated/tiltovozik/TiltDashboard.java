@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import javafx.geometry.Orientation;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.TextAlignment;
+import java.util.Arrays;
+
+/**
+ * Панель тильта множества игроков, нарисованная на одном Canvas.
+ * Узлы сцены не создаются на каждую строку: рисуются только видимые строки,
+ * и из них перерисовываются только те, у которых тильт изменился с прошлого кадра
+ */
+public final class TiltDashboard extends Region {
+    static final double ROW_HEIGHT = 22;
+    private static final double NAME_WIDTH = 160;
+    private static final double SYMBOL_WIDTH = 28;
+    private static final double VALUE_WIDTH = 48;
+    private static final double PADDING = 6;
+    private static final Color BACKGROUND = Color.web("#f5f7fa");
+    private static final Color STRIPE = Color.web("#e8ecf3");
+    private static final Color TEXT = Color.web("#2c3e50");
+    private static final Color BAR_TRACK = Color.web("#d5dbe3");
+    private static final Color[] STATE_COLORS = createStateColors();
+    private static final String[] TILT_LABELS = createTiltLabels();
+    private static final int NOT_RENDERED = Integer.MIN_VALUE;
+    
+    private final TiltEngine engine;
+    private final String[] names;
+    private final int[] renderedTilts;
+    private final Canvas canvas = new Canvas();
+    private final ScrollBar scrollBar = new ScrollBar();
+    private final FxUpdateCoalescer coalescer = new FxUpdateCoalescer(this::repaintChanged);
+    private int firstRow = -1;
+    private int visibleRows;
+    private double rowOffset;
+    
+    /**
+     * @param engine движок, номер сессии в котором совпадает с номером строки
+     * @param names имена игроков, по одному на сессию движка
+     */
+    public TiltDashboard(TiltEngine engine, String[] names) {
+        if (names.length > engine.capacity()) {
+            throw new IllegalArgumentException("Игроков больше, чем сессий в движке: " + names.length);
+        }
+        this.engine = engine;
+        this.names = names;
+        this.renderedTilts = new int[names.length];
+        
+        scrollBar.setOrientation(Orientation.VERTICAL);
+        scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> repaintAll());
+        canvas.setOnScroll(event -> scrollBar.setValue(clampScroll(scrollBar.getValue() - event.getDeltaY())));
+        getChildren().addAll(canvas, scrollBar);
+        getStyleClass().add("tilt-dashboard");
+    }
+    
+    /**
+     * Сообщает об изменении тильта игроков. Можно вызывать из любого потока:
+     * сколько бы раз ни пришел вызов, перерисовка выполнится не чаще раза за кадр
+     */
+    public void refresh() {
+        coalescer.requestRender();
+    }
+    
+    @Override
+    protected void layoutChildren() {
+        double scrollWidth = scrollBar.prefWidth(-1);
+        double width = Math.max(0, getWidth() - scrollWidth);
+        double height = getHeight();
+        scrollBar.resizeRelocate(width, 0, scrollWidth, height);
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            scrollBar.setMax(Math.max(0, names.length * ROW_HEIGHT - height));
+            scrollBar.setVisibleAmount(height);
+            scrollBar.setUnitIncrement(ROW_HEIGHT);
+            scrollBar.setBlockIncrement(height);
+            scrollBar.setValue(clampScroll(scrollBar.getValue()));
+            repaintAll();
+        }
+    }
+    
+    @Override
+    protected double computePrefWidth(double height) {
+        return NAME_WIDTH + SYMBOL_WIDTH + VALUE_WIDTH + 240 + scrollBar.prefWidth(-1);
+    }
+    
+    @Override
+    protected double computePrefHeight(double width) {
+        return ROW_HEIGHT * 30;
+    }
+    
+    private double clampScroll(double value) {
+        return Math.max(scrollBar.getMin(), Math.min(scrollBar.getMax(), value));
+    }
+    
+    private void repaintAll() {
+        double scroll = scrollBar.getValue();
+        firstRow = (int) (scroll / ROW_HEIGHT);
+        rowOffset = firstRow * ROW_HEIGHT - scroll;
+        visibleRows = Math.min(names.length - firstRow, (int) Math.ceil((canvas.getHeight() - rowOffset) / ROW_HEIGHT));
+        
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(BACKGROUND);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        // Строки вне экрана придется нарисовать заново, когда до них прокрутят
+        Arrays.fill(renderedTilts, NOT_RENDERED);
+        repaintChanged();
+    }
+    
+    private void repaintChanged() {
+        if (firstRow < 0) return;
+        
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        for (int i = 0; i < visibleRows; i++) {
+            int row = firstRow + i;
+            int tilt = engine.tiltOf(row);
+            if (tilt != renderedTilts[row]) {
+                paintRow(gc, row, rowOffset + i * ROW_HEIGHT, tilt);
+                renderedTilts[row] = tilt;
+            }
+        }
+    }
+    
+    private void paintRow(GraphicsContext gc, int row, double y, int tilt) {
+        double width = canvas.getWidth();
+        int state = TiltState.ordinalOf(tilt);
+        Color color = STATE_COLORS[state];
+        
+        gc.setFill((row & 1) == 0 ? BACKGROUND : STRIPE);
+        gc.fillRect(0, y, width, ROW_HEIGHT);
+        
+        double textY = y + ROW_HEIGHT / 2;
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setFill(TEXT);
+        gc.fillText(names[row], PADDING, textY, NAME_WIDTH - 2 * PADDING);
+        gc.setFill(color);
+        gc.fillText(TiltState.ofOrdinal(state).getSymbol(), NAME_WIDTH, textY);
+        
+        double barX = NAME_WIDTH + SYMBOL_WIDTH;
+        double barWidth = Math.max(0, width - barX - VALUE_WIDTH - PADDING);
+        double barY = y + 5;
+        double barHeight = ROW_HEIGHT - 10;
+        double normalized = (tilt - TiltEngine.MIN_TILT) / (double) (TiltEngine.MAX_TILT - TiltEngine.MIN_TILT);
+        gc.setFill(BAR_TRACK);
+        gc.fillRect(barX, barY, barWidth, barHeight);
+        gc.setFill(color);
+        gc.fillRect(barX, barY, barWidth * normalized, barHeight);
+        
+        gc.setTextAlign(TextAlignment.RIGHT);
+        gc.setFill(TEXT);
+        gc.fillText(TILT_LABELS[tilt - TiltEngine.MIN_TILT], width - PADDING, textY);
+    }
+    
+    private static Color[] createStateColors() {
+        TiltState[] states = TiltState.values();
+        Color[] colors = new Color[states.length];
+        for (TiltState state : states) {
+            colors[state.ordinal()] = Color.web(state.getColor());
+        }
+        return colors;
+    }
+    
+    private static String[] createTiltLabels() {
+        // Подписи значений готовятся заранее, чтобы перерисовка строки не создавала строк
+        String[] labels = new String[TiltEngine.MAX_TILT - TiltEngine.MIN_TILT + 1];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = Integer.toString(TiltEngine.MIN_TILT + i);
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Application;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.layout.BorderPane;
+import javafx.stage.Stage;
+import javafx.util.Duration;
+import java.util.Map;
+
+/**
+ * Режим тренера: тильт всего состава игроков на одной панели.
+ * Результаты матчей приходят от игровых клиентов через IngestionServer,
+ * номер сессии в запросе - номер игрока
+ */
+public class TiltDashboardApp extends Application {
+    
+    private static final String STYLESHEET = "/tiltovozik.css";
+    private static final int DEFAULT_PLAYERS = 5000;
+    private static final int MAX_PLAYERS = 1 << 20;
+    private static final int INGEST_THREADS = 4;
+    private static final Duration SUMMARY_INTERVAL = Duration.millis(500);
+    
+    private TiltEngine engine;
+    private TiltDashboard dashboard;
+    private IngestionServer ingestionServer;
+    private Label summaryLabel;
+    private int[] tiltsScratch;
+    
+    public static void main(String[] args) {
+        IngestionServer.preferNoDelay();
+        launch(args);
+    }
+    
+    @Override
+    public void start(Stage primaryStage) {
+        Map<String, String> parameters = getParameters().getNamed();
+        int players = intParameter(parameters, "players", DEFAULT_PLAYERS, 1, MAX_PLAYERS);
+        int port = intParameter(parameters, "ingest-port", IngestionServer.DEFAULT_PORT, 0, 65535);
+        
+        engine = new TiltEngine(players, TiltTrackerApp.loadTiltModel(parameters.get("tilt-model")));
+        tiltsScratch = new int[players];
+        String[] names = new String[players];
+        for (int i = 0; i < players; i++) {
+            names[i] = "Игрок " + (i + 1);
+        }
+        dashboard = new TiltDashboard(engine, names);
+        
+        summaryLabel = new Label();
+        summaryLabel.getStyleClass().add("stats-label");
+        summaryLabel.setPadding(new Insets(6));
+        updateSummary();
+        Timeline summaryTimeline = new Timeline(new KeyFrame(SUMMARY_INTERVAL, event -> updateSummary()));
+        summaryTimeline.setCycleCount(Timeline.INDEFINITE);
+        summaryTimeline.play();
+        
+        BorderPane root = new BorderPane(dashboard);
+        root.setTop(summaryLabel);
+        root.getStyleClass().add("root-pane");
+        Scene scene = new Scene(root, 720, 680);
+        scene.getStylesheets().add(TiltDashboardApp.class.getResource(STYLESHEET).toExternalForm());
+        
+        primaryStage.setTitle("🔥 Tiltovozik - состав (" + players + ")");
+        primaryStage.setScene(scene);
+        primaryStage.show();
+        
+        if (port != 0) {
+            try {
+                ingestionServer = new IngestionServer(port, INGEST_THREADS, this::ingestResult);
+                ingestionServer.start();
+            } catch (Exception e) {
+                System.err.println("Прием результатов от игровых клиентов недоступен: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Читает целый параметр; опечатка или значение вне диапазона не роняют запуск,
+     * а заменяются значением по умолчанию, как модель тильта в loadTiltModel
+     */
+    private static int intParameter(Map<String, String> parameters, String name, int defaultValue, int min, int max) {
+        String value = parameters.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed >= min && parsed <= max) {
+                return parsed;
+            }
+        } catch (NumberFormatException e) {
+            // Сообщение ниже то же, что для значения вне диапазона
+        }
+        System.err.printf("Некорректное значение --%s=%s, ожидается от %d до %d, используется %d%n",
+                          name, value, min, max, defaultValue);
+        return defaultValue;
+    }
+    
+    @Override
+    public void stop() {
+        if (ingestionServer != null) {
+            ingestionServer.close();
+        }
+    }
+    
+    private void ingestResult(int sessionId, boolean isWin) {
+        if (sessionId >= engine.capacity()) return;
+        
+        if (isWin) {
+            engine.recordWin(sessionId);
+        } else {
+            engine.recordLose(sessionId);
+        }
+        dashboard.refresh();
+    }
+    
+    private void updateSummary() {
+        // Остывающий тильт меняется и без новых результатов: видимые строки сверяются заодно со сводкой
+        dashboard.refresh();
+        // Сводка по всему составу, а не только по видимым строкам
+        int count = engine.copyTilts(tiltsScratch);
+        long[] histogram = TiltClassifier.classify(tiltsScratch, null);
+        StringBuilder summary = new StringBuilder("Игроков: ").append(count);
+        for (TiltState state : TiltState.values()) {
+            summary.append(" · ").append(state.getSymbol()).append(' ').append(histogram[state.ordinal()]);
+        }
+        summaryLabel.setText(summary.toString());
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+/**
+ * График истории тильта на Canvas с полосами состояний.
+ * Перед отрисовкой видимый интервал прореживается алгоритмом LTTB до ширины графика в пикселях,
+ * поэтому стоимость кадра не зависит от длины сессии. Колесо мыши масштабирует,
+ * перетаскивание сдвигает интервал, двойной щелчок возвращает всю сессию
+ */
+public final class TiltHistoryChart extends Region {
+    private static final double BAND_OPACITY = 0.18;
+    private static final Color LINE = Color.web("#2c3e50");
+    private static final Color[] BAND_COLORS = createBandColors();
+    private static final long MIN_SPAN_MILLIS = 1000;
+    private static final double ZOOM_STEP = 1.25;
+    
+    private final TiltHistory history;
+    private final Canvas canvas = new Canvas();
+    private final FxUpdateCoalescer coalescer = new FxUpdateCoalescer(this::repaint);
+    private long[] sampleTimes = new long[0];
+    private int[] sampleTilts = new int[0];
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    
+    // Видимый интервал: span = 0 - вся сессия, following - правый край идет за последней точкой
+    private long span;
+    private long end;
+    private boolean following = true;
+    private double dragX;
+    private long dragEnd;
+    
+    public TiltHistoryChart(TiltHistory history) {
+        this.history = history;
+        getChildren().add(canvas);
+        getStyleClass().add("tilt-history-chart");
+        
+        canvas.setOnScroll(event -> {
+            if (event.getDeltaY() != 0) {
+                zoom(event.getDeltaY() > 0 ? 1 / ZOOM_STEP : ZOOM_STEP, event.getX());
+            }
+        });
+        canvas.setOnMousePressed(event -> {
+            long[] window = window();
+            dragX = event.getX();
+            dragEnd = window[1];
+        });
+        canvas.setOnMouseDragged(event -> pan(event.getX()));
+        canvas.setOnMouseClicked(event -> {
+            if (event.getButton() == MouseButton.PRIMARY && event.getClickCount() == 2) {
+                span = 0;
+                following = true;
+                repaint();
+            }
+        });
+    }
+    
+    /**
+     * Сообщает о новых точках истории. Можно вызывать из любого потока
+     */
+    public void refresh() {
+        coalescer.requestRender();
+    }
+    
+    @Override
+    protected void layoutChildren() {
+        double width = getWidth();
+        double height = getHeight();
+        if (canvas.getWidth() != width || canvas.getHeight() != height) {
+            canvas.setWidth(width);
+            canvas.setHeight(height);
+            int points = Math.max(0, (int) width);
+            sampleTimes = new long[points];
+            sampleTilts = new int[points];
+            xs = new double[points];
+            ys = new double[points];
+            repaint();
+        }
+    }
+    
+    @Override
+    protected double computePrefHeight(double width) {
+        return 120;
+    }
+    
+    private void zoom(double factor, double anchorX) {
+        long[] window = window();
+        long full = history.getLastTime() - history.getFirstTime();
+        if (full <= 0) return;
+        
+        long current = window[1] - window[0];
+        long anchor = window[0] + Math.round(current * (anchorX / canvas.getWidth()));
+        long newSpan = Math.max(MIN_SPAN_MILLIS, Math.round(current * factor));
+        if (newSpan >= full) {
+            span = 0;
+            following = true;
+        } else {
+            // Точка под курсором остается на месте
+            long newStart = anchor - Math.round(newSpan * (anchorX / canvas.getWidth()));
+            span = newSpan;
+            setEnd(newStart + newSpan);
+        }
+        repaint();
+    }
+    
+    private void pan(double x) {
+        if (span == 0) return;
+        
+        long shift = Math.round((dragX - x) * span / canvas.getWidth());
+        setEnd(dragEnd + shift);
+        repaint();
+    }
+    
+    private void setEnd(long value) {
+        long first = history.getFirstTime();
+        long last = history.getLastTime();
+        end = Math.max(first + span, Math.min(last, value));
+        following = end >= last;
+    }
+    
+    /**
+     * Возвращает видимый интервал {начало, конец} в миллисекундах
+     */
+    private long[] window() {
+        long first = history.getFirstTime();
+        long last = history.getLastTime();
+        if (span == 0 || span >= last - first) {
+            return new long[] {first, last};
+        }
+        long right = following ? last : end;
+        return new long[] {right - span, right};
+    }
+    
+    private void repaint() {
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        paintBands(gc, width, height);
+        
+        long[] window = window();
+        int count = history.downsample(window[0], window[1], sampleTimes.length, sampleTimes, sampleTilts);
+        if (count == 0) return;
+        
+        double duration = window[1] - window[0];
+        for (int i = 0; i < count; i++) {
+            xs[i] = duration > 0 ? (sampleTimes[i] - window[0]) / duration * width : width / 2;
+            ys[i] = yOf(sampleTilts[i], height);
+        }
+        gc.setStroke(LINE);
+        gc.setLineWidth(1.5);
+        if (count == 1) {
+            gc.strokeLine(0, ys[0], width, ys[0]);
+        } else {
+            gc.strokePolyline(xs, ys, count);
+        }
+    }
+    
+    private static void paintBands(GraphicsContext gc, double width, double height) {
+        gc.clearRect(0, 0, width, height);
+        for (TiltState state : TiltState.values()) {
+            double top = yOf(state.getMaxValue() + 0.5, height);
+            double bottom = yOf(state.getMinValue() - 0.5, height);
+            gc.setFill(BAND_COLORS[state.ordinal()]);
+            gc.fillRect(0, top, width, bottom - top);
+        }
+    }
+    
+    private static double yOf(double tilt, double height) {
+        double clamped = Math.max(TiltEngine.MIN_TILT - 0.5, Math.min(TiltEngine.MAX_TILT + 0.5, tilt));
+        return (TiltEngine.MAX_TILT + 0.5 - clamped) / (TiltEngine.MAX_TILT - TiltEngine.MIN_TILT + 1) * height;
+    }
+    
+    private static Color[] createBandColors() {
+        TiltState[] states = TiltState.values();
+        Color[] colors = new Color[states.length];
+        for (TiltState state : states) {
+            colors[state.ordinal()] = Color.web(state.getColor(), BAND_OPACITY);
+        }
+        return colors;
+    }
+}
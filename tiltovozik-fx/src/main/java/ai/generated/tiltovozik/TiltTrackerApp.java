@@ -0,0 +1,760 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.layout.*;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+import javafx.geometry.*;
+import java.io.File;
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TiltTrackerApp extends Application {
+    
+    private static final int SESSION_ID = 0;
+    private static final String WIN_PHRASES_FILE = "win_phrases.txt";
+    private static final String LOSE_PHRASES_FILE = "lose_phrases.txt";
+    private static final String PHRASE_PACK_FILE = "phrases.tpack";
+    private static final Path DATA_DIR = Paths.get(System.getProperty("user.home"), ".tiltovozik");
+    private static final String STYLESHEET = "/tiltovozik.css";
+    private static final String INGEST_PORT_PARAMETER = "ingest-port";
+    private static final String TILT_MODEL_PARAMETER = "tilt-model";
+    private static final String TELEMETRY_PARAMETER = "telemetry";
+    private static final String LOCALE_PARAMETER = "locale";
+    private static final String THEME_PARAMETER = "theme";
+    private static final String ALERTS_PARAMETER = "alerts";
+    private static final String ALERT_WEBHOOK_PARAMETER = "alert-webhook";
+    private static final String PLAYER_PARAMETER = "player";
+    private static final String DATA_PARAMETER = "data";
+    private static final int INGEST_THREADS = 2;
+    private static final PseudoClass[] STATE_PSEUDO_CLASSES = createStatePseudoClasses();
+    private static final PseudoClass EXTREME_PSEUDO_CLASS = PseudoClass.getPseudoClass("extreme");
+    private static final PseudoClass WIN_PSEUDO_CLASS = PseudoClass.getPseudoClass("win");
+    private static final PseudoClass LOSE_PSEUDO_CLASS = PseudoClass.getPseudoClass("lose");
+    
+    private String username;
+    private Path dataDir;
+    private TiltEngine tiltEngine;
+    private PhraseManager phraseManager;
+    private PhraseReloader phraseReloader;
+    // Один реестр наборов языков и тем на процесс; набор сессии подменяется при перезагрузке фраз
+    private final PhraseCorpusRegistry phraseRegistry = new PhraseCorpusRegistry();
+    private volatile PhraseCorpus sessionCorpus;
+    private TiltPersistence persistence;
+    private IngestionServer ingestionServer;
+    private FxUpdateCoalescer ingestionRenderer;
+    private volatile boolean lastIngestedWin;
+    private TiltAlerter alerter;
+    private PhraseHistory phraseHistory;
+    private final PhraseContext phraseContext = new PhraseContext();
+    private SessionStats sessionStats;
+    private final TiltHistory tiltHistory = new TiltHistory();
+    private final Random random = new Random(); // Единый экземпляр Random для выбора фраз
+    
+    // Запуск
+    private final StartupTimer startupTimer = new StartupTimer();
+    private CompletableFuture<Void> phrasesLoaded;
+    private CompletableFuture<Void> sessionRestored;
+    private Scene mainScene;
+    private boolean tiltEdited;
+    
+    // UI компоненты
+    private Label tiltLabel;
+    private Label statsLabel;
+    private ProgressBar tiltBar;
+    private Label messageLabel;
+    private TiltHistoryChart historyChart;
+    private StackPane messageContainer;
+    private TiltState renderedState;
+    
+    // Экспорт истории: прогресс приходит из фонового потока и показывается в заголовке окна
+    private CompletableFuture<Long> exportTask;
+    private FxUpdateCoalescer exportRenderer;
+    private volatile String exportStatus;
+    
+    // Телеметрия кликов: момент нажатия и момент окончания обработчика, 0 - замер не идет
+    private long clickStartedNanos;
+    private long clickHandledNanos;
+    
+    public static void main(String[] args) {
+        IngestionServer.preferNoDelay();
+        launch(args);
+    }
+    
+    @Override
+    public void init() {
+        if ("on".equals(getParameters().getNamed().get(TELEMETRY_PARAMETER))) {
+            Telemetry.setEnabled(true);
+        }
+        String data = getParameters().getNamed().get(DATA_PARAMETER);
+        dataDir = data == null ? DATA_DIR : Paths.get(data);
+        tiltEngine = new TiltEngine(1, loadTiltModel(getParameters().getNamed().get(TILT_MODEL_PARAMETER)));
+        sessionStats = new SessionStats(tiltEngine.model());
+        phraseManager = new PhraseManager();
+        phraseHistory = phraseManager.newHistory();
+        startAlerts();
+        
+        // Загрузка фраз и восстановление сессии идут в фоне, пока запускается JavaFX и открыто окно входа
+        ExecutorService startupExecutor = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "tiltovozik-startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        phrasesLoaded = CompletableFuture.runAsync(
+            () -> startupTimer.run("загрузка фраз", this::loadPhrases), startupExecutor);
+        sessionRestored = CompletableFuture.runAsync(
+            () -> startupTimer.run("восстановление сессии", this::restoreSession), startupExecutor);
+        startupExecutor.shutdown();
+    }
+    
+    @Override
+    public void start(Stage primaryStage) {
+        // Сцена строится в цикле событий окна входа, пока игрок вводит данные
+        Platform.runLater(this::prebuildMainScene);
+        
+        // С заданным именем игрока окно входа пропускается: так приложение запускают сценарии и тесты
+        String player = getParameters().getNamed().get(PLAYER_PARAMETER);
+        if (player != null) {
+            enterAs(player);
+        } else {
+            long loginStarted = System.nanoTime();
+            showLoginDialog();
+            startupTimer.record("окно входа", loginStarted);
+        }
+        
+        phrasesLoaded.join();
+        prebuildMainScene();
+        updateTiltBar();
+        
+        primaryStage.setTitle("🔥 Tiltovozik - " + username);
+        primaryStage.setScene(mainScene);
+        primaryStage.setResizable(false);
+        primaryStage.show();
+        startIngestion();
+        startupTimer.report();
+    }
+    
+    static TiltModel loadTiltModel(String name) {
+        if (name == null) {
+            return TiltModel.classic();
+        }
+        try {
+            return TiltModel.load(name);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage() + ", используется classic");
+            return TiltModel.classic();
+        }
+    }
+    
+    private void loadPhrases() {
+        try {
+            phraseManager.loadPhrases(PHRASE_PACK_FILE, WIN_PHRASES_FILE, LOSE_PHRASES_FILE);
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки фраз: " + e.getMessage());
+        }
+        // Набор языка и темы сессии берется из реестра с цепочкой замены, без языка - набор по умолчанию
+        String locale = getParameters().getNamed().get(LOCALE_PARAMETER);
+        String theme = getParameters().getNamed().get(THEME_PARAMETER);
+        resolveSessionPhrases(locale, theme);
+        
+        try {
+            phraseReloader = new PhraseReloader(phraseManager, PHRASE_PACK_FILE, WIN_PHRASES_FILE, LOSE_PHRASES_FILE);
+            phraseReloader.invalidateOnReload(phraseRegistry);
+            if (sessionCorpus != null) {
+                phraseReloader.watchFiles(PhraseCorpusRegistry.sourceFiles(locale, theme));
+                phraseReloader.setOnReload(() -> resolveSessionPhrases(locale, theme));
+            }
+            phraseReloader.start();
+        } catch (Exception e) {
+            System.err.println("Перезагрузка фраз на лету недоступна: " + e.getMessage());
+        }
+    }
+    
+    private void resolveSessionPhrases(String locale, String theme) {
+        if (locale == null) {
+            return;
+        }
+        try {
+            PhraseCorpus corpus = phraseRegistry.resolve(locale, theme);
+            sessionCorpus = corpus;
+            System.out.printf("Загружено фраз: побед - %d, поражений - %d (%s)%n",
+                             corpus.size(true), corpus.size(false), phraseRegistry.summary());
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки фраз: " + e.getMessage());
+        }
+    }
+    
+    private PhraseCorpus currentCorpus() {
+        PhraseCorpus corpus = sessionCorpus;
+        return corpus != null ? corpus : phraseManager.getCorpus();
+    }
+    
+    private void restoreSession() {
+        try {
+            persistence = TiltPersistence.open(dataDir, tiltEngine);
+        } catch (Exception e) {
+            System.err.println("Ошибка восстановления сессии: " + e.getMessage());
+        }
+    }
+    
+    private void prebuildMainScene() {
+        if (mainScene == null) {
+            mainScene = startupTimer.time("построение сцены", this::createMainScene);
+        }
+    }
+    
+    /**
+     * Оповещения о Ярости и Апокалипсисе: в консоль, уведомлением рабочего стола и, если задан, на вебхук.
+     * Доставка идет в фоновых потоках и не задерживает обработку клика
+     */
+    private void startAlerts() {
+        Map<String, String> parameters = getParameters().getNamed();
+        if ("off".equals(parameters.get(ALERTS_PARAMETER))) return;
+        
+        List<AlertSink> sinks = new ArrayList<>();
+        sinks.add(new LogAlertSink(System.out));
+        sinks.add(new DesktopAlertSink());
+        String webhook = parameters.get(ALERT_WEBHOOK_PARAMETER);
+        if (webhook != null) {
+            try {
+                sinks.add(new WebhookAlertSink(URI.create(webhook)));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Некорректный адрес вебхука оповещений: " + webhook);
+            }
+        }
+        alerter = new TiltAlerter(1, sinks);
+    }
+    
+    private void startIngestion() {
+        int port = IngestionServer.DEFAULT_PORT;
+        String value = getParameters().getNamed().get(INGEST_PORT_PARAMETER);
+        if (value != null) {
+            try {
+                port = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                System.err.println("Некорректный порт приема результатов: " + value);
+                return;
+            }
+        }
+        if (port == 0) return;
+        
+        ingestionRenderer = new FxUpdateCoalescer(this::renderIngested);
+        try {
+            ingestionServer = new IngestionServer(port, INGEST_THREADS, this::ingestResult);
+            ingestionServer.start();
+        } catch (Exception e) {
+            System.err.println("Прием результатов от игрового клиента недоступен: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Учитывает результат от игрового клиента в потоке сервера, UI обновляется не чаще раза за кадр
+     */
+    private void ingestResult(int sessionId, boolean isWin) {
+        if (sessionId != SESSION_ID) return;
+        
+        long result = tiltEngine.recordResult(SESSION_ID, isWin);
+        long now = System.currentTimeMillis();
+        sessionStats.record(isWin, TiltEngine.tiltAfter(result), now);
+        trackTilt(now);
+        recordEvent(isWin ? EventJournal.WIN : EventJournal.LOSE, result, -1);
+        lastIngestedWin = isWin;
+        ingestionRenderer.requestRender();
+    }
+    
+    private void renderIngested() {
+        updateTiltBar();
+        updateStats(System.currentTimeMillis());
+        showRandomMessage(lastIngestedWin);
+    }
+    
+    @Override
+    public void stop() {
+        if (ingestionServer != null) {
+            ingestionServer.close();
+        }
+        if (alerter != null) {
+            alerter.close();
+        }
+        if (phraseReloader != null) {
+            try {
+                phraseReloader.close();
+            } catch (Exception e) {
+                System.err.println("Ошибка остановки перезагрузки фраз: " + e.getMessage());
+            }
+        }
+        if (persistence != null) {
+            try {
+                persistence.close();
+            } catch (Exception e) {
+                System.err.println("Ошибка сохранения сессии: " + e.getMessage());
+            }
+        }
+    }
+    
+    private void showLoginDialog() {
+        Dialog<Pair<String, Integer>> dialog = new Dialog<>();
+        dialog.setTitle("Добро пожаловать в Tiltovozik!");
+        dialog.setHeaderText("Введите данные игрока");
+        
+        TextField usernameField = new TextField("Игрок");
+        usernameField.setPromptText("Имя игрока");
+        
+        Spinner<Integer> tiltSpinner = new Spinner<>(TiltEngine.MIN_TILT, TiltEngine.MAX_TILT,
+                                                           tiltEngine.tiltOf(SESSION_ID));
+        tiltSpinner.setEditable(true);
+        tiltSpinner.valueProperty().addListener((observable, oldValue, newValue) -> tiltEdited = true);
+        
+        // Если сессия восстановилась уже при открытом окне, подставляем сохраненные тильт и имя
+        sessionRestored.thenRunAsync(() -> {
+            if (!tiltEdited) {
+                tiltSpinner.getValueFactory().setValue(tiltEngine.tiltOf(SESSION_ID));
+            }
+            String savedName = persistence == null ? null : persistence.username();
+            if (savedName != null && usernameField.getText().equals("Игрок")) {
+                usernameField.setText(savedName);
+            }
+        }, Platform::runLater);
+        
+        GridPane grid = createLoginGrid(usernameField, tiltSpinner);
+        dialog.getDialogPane().setContent(grid);
+        
+        setupDialogButtons(dialog);
+        
+        Optional<Pair<String, Integer>> result = dialog.showAndWait();
+        result.ifPresentOrElse(pair -> {
+            username = pair.getKey().isEmpty() ? "Игрок" : pair.getKey();
+            sessionRestored.join();
+            if (persistence != null) {
+                persistence.setUsername(username);
+            }
+            int before = tiltEngine.tiltOf(SESSION_ID);
+            tiltEngine.setTilt(SESSION_ID, pair.getValue());
+            long now = System.currentTimeMillis();
+            sessionStats.start(tiltEngine.tiltOf(SESSION_ID), now);
+            trackTilt(now);
+            recordEvent(EventJournal.RESET, before, -1);
+        }, Platform::exit);
+    }
+    
+    /**
+     * Начинает сессию без окна входа с восстановленным тильтом
+     */
+    private void enterAs(String player) {
+        username = player.isEmpty() ? "Игрок" : player;
+        sessionRestored.join();
+        if (persistence != null) {
+            persistence.setUsername(username);
+        }
+        long now = System.currentTimeMillis();
+        sessionStats.start(tiltEngine.tiltOf(SESSION_ID), now);
+        trackTilt(now);
+    }
+    
+    private GridPane createLoginGrid(TextField usernameField, Spinner<Integer> tiltSpinner) {
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 150, 10, 10));
+        
+        grid.add(new Label("Имя игрока:"), 0, 0);
+        grid.add(usernameField, 1, 0);
+        grid.add(new Label("Начальный уровень тильта:"), 0, 1);
+        grid.add(tiltSpinner, 1, 1);
+        
+        return grid;
+    }
+    
+    private void setupDialogButtons(Dialog<Pair<String, Integer>> dialog) {
+        ButtonType loginButtonType = new ButtonType("Начать отслеживание", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(loginButtonType, ButtonType.CANCEL);
+        
+        dialog.setResultConverter(dialogButton -> {
+            if (dialogButton == loginButtonType) {
+                TextField usernameField = (TextField) ((GridPane) dialog.getDialogPane().getContent())
+                    .getChildren().get(1);
+                Spinner<Integer> tiltSpinner = (Spinner<Integer>) ((GridPane) dialog.getDialogPane().getContent())
+                    .getChildren().get(3);
+                return new Pair<>(usernameField.getText(), tiltSpinner.getValue());
+            }
+            return null;
+        });
+    }
+    
+    private Scene createMainScene() {
+        VBox root = createRootLayout();
+        
+        root.getChildren().addAll(
+            createHeader(),
+            createTiltScale(),
+            createMessageContainer(),
+            createButtons(),
+            createHistoryChart()
+        );
+        
+        updateTiltBar();
+        
+        Scene scene = new Scene(root, 420, 590); // Добавили график истории тильта
+        scene.getStylesheets().add(getClass().getResource(STYLESHEET).toExternalForm());
+        scene.addPreLayoutPulseListener(this::onPulseStarted);
+        scene.addPostLayoutPulseListener(this::onPulseFinished);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F9), () -> Telemetry.setEnabled(!Telemetry.isEnabled()));
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F10), this::dumpTelemetry);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F8), this::exportHistory);
+        return scene;
+    }
+    
+    private VBox createRootLayout() {
+        VBox root = new VBox(15);
+        root.setPadding(new Insets(25));
+        root.setAlignment(Pos.CENTER);
+        root.getStyleClass().add("root-pane");
+        return root;
+    }
+    
+    private HBox createHeader() {
+        HBox headerBox = new HBox(10);
+        headerBox.setAlignment(Pos.CENTER);
+        
+        Label fireIcon = new Label("🔥");
+        fireIcon.getStyleClass().add("fire-icon");
+        
+        Label titleLabel = new Label("TILTOVOZIK");
+        titleLabel.getStyleClass().add("title-label");
+        
+        headerBox.getChildren().addAll(fireIcon, titleLabel);
+        return headerBox;
+    }
+    
+    private VBox createTiltScale() {
+        VBox scaleBox = new VBox(5);
+        scaleBox.setAlignment(Pos.CENTER);
+        scaleBox.setPadding(new Insets(15, 0, 10, 0));
+        scaleBox.setMinHeight(80);
+        
+        tiltBar = new ProgressBar();
+        tiltBar.setPrefWidth(380);
+        tiltBar.setPrefHeight(28);
+        tiltBar.getStyleClass().add("tilt-bar");
+        
+        tiltLabel = new Label();
+        tiltLabel.getStyleClass().add("tilt-label");
+        tiltLabel.setMinHeight(40);
+        tiltLabel.setAlignment(Pos.CENTER);
+        
+        statsLabel = new Label("Игр пока нет");
+        statsLabel.getStyleClass().add("stats-label");
+        statsLabel.setTooltip(new Tooltip());
+        // Время в состояниях меняется и без игр, пока тильт остывает
+        statsLabel.getTooltip().setOnShowing(event -> {
+            if (sessionStats.getGames() > 0) {
+                updateStats(System.currentTimeMillis());
+            }
+        });
+        
+        scaleBox.getChildren().addAll(tiltBar, tiltLabel, statsLabel);
+        return scaleBox;
+    }
+    
+    private StackPane createMessageContainer() {
+        messageLabel = new Label("Удачи в игре! 🎮");
+        messageLabel.getStyleClass().add("message-label");
+        messageLabel.setWrapText(true);
+        messageLabel.setPrefWidth(380);
+        messageLabel.setMaxWidth(380);
+        messageLabel.setAlignment(Pos.CENTER);
+        messageLabel.setPadding(new Insets(12, 15, 12, 15));
+        
+        messageContainer = new StackPane(messageLabel);
+        messageContainer.getStyleClass().add("message-container");
+        messageContainer.setMaxWidth(380);
+        messageContainer.setMinHeight(100); // Увеличили высоту контейнера
+        messageContainer.setPrefHeight(100);
+        
+        return messageContainer;
+    }
+    
+    private TiltHistoryChart createHistoryChart() {
+        historyChart = new TiltHistoryChart(tiltHistory);
+        historyChart.setPrefSize(370, 120);
+        historyChart.setMaxWidth(370);
+        return historyChart;
+    }
+    
+    private HBox createButtons() {
+        HBox buttonBox = new HBox(20);
+        buttonBox.setAlignment(Pos.CENTER);
+        buttonBox.setPadding(new Insets(10, 0, 5, 0));
+        
+        Button winButton = createStyledButton("ПОБЕДА 🏆", true);
+        Button loseButton = createStyledButton("ПОРАЖЕНИЕ 💀", false);
+        
+        winButton.setOnAction(e -> handleWin());
+        loseButton.setOnAction(e -> handleLose());
+        
+        buttonBox.getChildren().addAll(winButton, loseButton);
+        return buttonBox;
+    }
+    
+    private Button createStyledButton(String text, boolean isWin) {
+        Button button = new Button(text);
+        // Подсветка при наведении задана псевдоклассом :hover в таблице стилей
+        button.getStyleClass().addAll("result-button", isWin ? "win-button" : "lose-button");
+        return button;
+    }
+    
+    private void handleWin() {
+        long started = Telemetry.start();
+        long result = tiltEngine.recordResult(SESSION_ID, true);
+        countResult(true);
+        updateTiltBar();
+        showRandomMessage(true);
+        recordEvent(EventJournal.WIN, result, phraseContext.getLastPhraseIndex());
+        markClickHandled(started);
+    }
+    
+    private void handleLose() {
+        long started = Telemetry.start();
+        long result = tiltEngine.recordResult(SESSION_ID, false);
+        countResult(false);
+        updateTiltBar();
+        showRandomMessage(false);
+        recordEvent(EventJournal.LOSE, result, phraseContext.getLastPhraseIndex());
+        markClickHandled(started);
+    }
+    
+    private void markClickHandled(long startedNanos) {
+        if (startedNanos == 0) return;
+        
+        clickStartedNanos = startedNanos;
+        clickHandledNanos = System.nanoTime();
+    }
+    
+    private void onPulseStarted() {
+        // Задержка пульса: от конца обработчика клика до начала кадра, который его покажет
+        if (clickHandledNanos != 0) {
+            Telemetry.PULSE_LAG.record(System.nanoTime() - clickHandledNanos);
+            clickHandledNanos = 0;
+        }
+    }
+    
+    private void onPulseFinished() {
+        // Кадр после раскладки уходит на отрисовку: считаем клик показанным
+        if (clickStartedNanos != 0) {
+            Telemetry.CLICK_TO_RENDER.record(System.nanoTime() - clickStartedNanos);
+            clickStartedNanos = 0;
+        }
+    }
+    
+    private void dumpTelemetry() {
+        System.out.print(Telemetry.report());
+        CompletableFuture.runAsync(() -> {
+            try {
+                System.out.println("Телеметрия сохранена: " + Telemetry.dump(dataDir));
+            } catch (Exception e) {
+                System.err.println("Ошибка сохранения телеметрии: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Экспортирует историю сессии в выбранный файл в фоне, повторное нажатие отменяет экспорт
+     */
+    private void exportHistory() {
+        if (exportTask != null && !exportTask.isDone()) {
+            exportTask.cancel(false);
+            return;
+        }
+        if (persistence == null) {
+            System.err.println("Экспорт недоступен: история сессии не сохраняется");
+            return;
+        }
+        
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Экспорт истории");
+        chooser.setInitialFileName("tiltovozik-history");
+        JournalExporter.Format[] formats = JournalExporter.Format.values();
+        for (JournalExporter.Format format : formats) {
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                format.name() + " (*." + format.getExtension() + ")", "*." + format.getExtension()));
+        }
+        File file = chooser.showSaveDialog(mainScene.getWindow());
+        if (file == null) return;
+        
+        JournalExporter.Format format = formats[chooser.getExtensionFilters().indexOf(chooser.getSelectedExtensionFilter())];
+        Path target = file.getName().contains(".") ? file.toPath() : Paths.get(file.getPath() + "." + format.getExtension());
+        if (exportRenderer == null) {
+            exportRenderer = new FxUpdateCoalescer(this::renderExportStatus);
+        }
+        JournalExporter exporter = new JournalExporter(persistence.journal(), currentCorpus());
+        CompletableFuture<Long> task = exporter.exportAsync(target, format, (exported, total) -> {
+            exportStatus = String.format("экспорт %d%%", total == 0 ? 100 : exported * 100 / total);
+            exportRenderer.requestRender();
+        });
+        exportTask = task;
+        task.whenComplete((exported, error) -> {
+            exportStatus = error == null ? "экспортировано событий: " + exported
+                : task.isCancelled() ? "экспорт отменен" : "ошибка экспорта";
+            if (error != null && !task.isCancelled()) {
+                System.err.println("Ошибка экспорта истории: " + error.getMessage());
+            }
+            exportRenderer.requestRender();
+        });
+    }
+    
+    private void renderExportStatus() {
+        if (mainScene.getWindow() instanceof Stage) {
+            ((Stage) mainScene.getWindow()).setTitle("🔥 Tiltovozik - " + username + " — " + exportStatus);
+        }
+    }
+    
+    private void countResult(boolean isWin) {
+        long now = System.currentTimeMillis();
+        sessionStats.record(isWin, tiltEngine.tiltOf(SESSION_ID), now);
+        trackTilt(now);
+        updateStats(now);
+    }
+    
+    private void trackTilt(long now) {
+        int tilt = tiltEngine.tiltOf(SESSION_ID);
+        tiltHistory.add(now, tilt);
+        if (alerter != null) {
+            alerter.observe(SESSION_ID, tilt, now);
+        }
+        if (historyChart != null) {
+            historyChart.refresh();
+        }
+    }
+    
+    private void updateStats(long now) {
+        if (statsLabel == null) return;
+        
+        statsLabel.setText(String.format("Игр: %d · Побед: %d%% (последние %d: %d%%) · Серия: %d %s",
+            sessionStats.getGames(), sessionStats.getWinRate(), SessionStats.DEFAULT_WINDOW_SIZE,
+            sessionStats.getWindowWinRate(), sessionStats.getStreak(), sessionStats.isWinStreak() ? "🏆" : "💀"));
+        
+        StringBuilder details = new StringBuilder();
+        details.append(String.format("Скорость тильта: %+.1f за игру%n", sessionStats.getTiltVelocity()));
+        details.append(String.format("За час: %d игр, побед %d%%%n",
+            sessionStats.getHourGames(now), sessionStats.getHourWinRate(now)));
+        details.append(String.format("Лучшая серия побед: %d, худшая серия поражений: %d%n",
+            sessionStats.getBestWinStreak(), sessionStats.getWorstLoseStreak()));
+        details.append("Время в состояниях:");
+        for (TiltState state : TiltState.values()) {
+            long seconds = sessionStats.getTimeInState(state, now) / 1000;
+            if (seconds > 0) {
+                details.append(String.format("%n  %s — %d:%02d", state.getFullDisplayName(), seconds / 60, seconds % 60));
+            }
+        }
+        statsLabel.getTooltip().setText(details.toString());
+    }
+    
+    /**
+     * @param result значение TiltEngine.recordResult: изменение берется из него, а не из повторного чтения тильта,
+     *               которое при параллельном приеме результатов попало бы на чужое изменение
+     */
+    private void recordEvent(byte type, long result, int phraseIndex) {
+        if (persistence == null) return;
+        
+        int tiltAfter = TiltEngine.tiltAfter(result);
+        persistence.record(SESSION_ID, type, tiltAfter - TiltEngine.tiltBefore(result), tiltAfter, phraseIndex);
+    }
+    
+    private void updateTiltBar() {
+        if (tiltBar == null || tiltLabel == null) return;
+        
+        int currentTilt = tiltEngine.tiltOf(SESSION_ID);
+        double normalized = (currentTilt - TiltEngine.MIN_TILT) / (double) (TiltEngine.MAX_TILT - TiltEngine.MIN_TILT);
+        tiltBar.setProgress(normalized);
+        
+        TiltState currentState = tiltEngine.stateOf(SESSION_ID);
+        
+        // Стили переключаются только при смене состояния и без разбора CSS
+        if (currentState != renderedState) {
+            if (renderedState != null) {
+                tiltBar.pseudoClassStateChanged(statePseudoClass(renderedState), false);
+                tiltLabel.pseudoClassStateChanged(statePseudoClass(renderedState), false);
+            }
+            tiltBar.pseudoClassStateChanged(statePseudoClass(currentState), true);
+            tiltBar.pseudoClassStateChanged(EXTREME_PSEUDO_CLASS, currentState.isExtreme());
+            tiltLabel.pseudoClassStateChanged(statePseudoClass(currentState), true);
+            tiltLabel.setText(currentState.getFullDisplayName());
+            renderedState = currentState;
+        }
+    }
+    
+    static PseudoClass statePseudoClass(TiltState state) {
+        return STATE_PSEUDO_CLASSES[state.ordinal()];
+    }
+    
+    private static PseudoClass[] createStatePseudoClasses() {
+        TiltState[] states = TiltState.values();
+        PseudoClass[] pseudoClasses = new PseudoClass[states.length];
+        for (TiltState state : states) {
+            // RAGE -> :rage, LIGHT_TILT -> :light-tilt
+            String name = state.name().toLowerCase(Locale.ROOT).replace('_', '-');
+            pseudoClasses[state.ordinal()] = PseudoClass.getPseudoClass(name);
+        }
+        return pseudoClasses;
+    }
+    
+    private void showRandomMessage(boolean isWin) {
+        if (messageLabel == null || messageContainer == null) return;
+        
+        phraseContext.setUsername(username)
+                     .setTilt(tiltEngine.tiltOf(SESSION_ID))
+                     .setStreak(sessionStats.getStreak())
+                     .setWinRate(sessionStats.getWinRate());
+        String message = phraseManager.getRandomPhrase(currentCorpus(), phraseHistory, isWin, phraseContext, random);
+        
+        // Убрали обрезку сообщений - теперь все фразы будут отображаться полностью
+        messageLabel.setText(message);
+        
+        messageLabel.pseudoClassStateChanged(WIN_PSEUDO_CLASS, isWin);
+        messageLabel.pseudoClassStateChanged(LOSE_PSEUDO_CLASS, !isWin);
+        messageContainer.pseudoClassStateChanged(WIN_PSEUDO_CLASS, isWin);
+        messageContainer.pseudoClassStateChanged(LOSE_PSEUDO_CLASS, !isWin);
+    }
+    
+    private static class Pair<K, V> {
+        private final K key;
+        private final V value;
+        
+        public Pair(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+        
+        public K getKey() { return key; }
+        public V getValue() { return value; }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import java.util.Arrays;
+
+/**
+ * Точка входа для запуска из jar-with-dependencies.
+ * Лаунчер Java отказывается запускать наследника Application, если JavaFX лежит
+ * в classpath, а не в module path, поэтому главный класс не наследует Application
+ */
+public final class TiltTrackerLauncher {
+    
+    private TiltTrackerLauncher() {
+    }
+    
+    public static void main(String[] args) {
+        // --dashboard запускает панель тренера вместо окна одного игрока
+        if (Arrays.asList(args).contains("--dashboard")) {
+            TiltDashboardApp.main(args);
+        } else {
+            TiltTrackerApp.main(args);
+        }
+    }
+}
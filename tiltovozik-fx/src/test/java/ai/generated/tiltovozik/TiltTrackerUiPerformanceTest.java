@@ -0,0 +1,398 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.css.PseudoClass;
+import javafx.geometry.Bounds;
+import javafx.geometry.Point2D;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.input.MouseButton;
+import javafx.scene.robot.Robot;
+import javafx.stage.Window;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Тест отзывчивости главного окна без дисплея.
+ * Приложение запускается на Monocle Headless с программной отрисовкой, Robot нажимает кнопки победы и поражения,
+ * а тест измеряет задержку от нажатия до кадра, в котором tiltLabel и messageLabel показывают результат.
+ * Заодно снимаются выделение памяти на нажатие и паузы сборщика мусора.
+ * Тест входит в сборку только с профилем uiperf и требует системных библиотек шрифтов JavaFX:
+ * если приложение не запускается, тест падает. Бюджеты задаются системными свойствами uiperf.budget.*,
+ * каждый проверяется, только если задан, и превышение проваливает сборку
+ */
+class TiltTrackerUiPerformanceTest {
+    private static final long STARTUP_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+    private static final long FRAME_TIMEOUT_SECONDS = 5;
+    private static final long FRAME_NANOS = TimeUnit.SECONDS.toNanos(1) / 60;
+    private static final PseudoClass WIN_PSEUDO_CLASS = PseudoClass.getPseudoClass("win");
+    private static final PseudoClass LOSE_PSEUDO_CLASS = PseudoClass.getPseudoClass("lose");
+    
+    private static Path dataDir;
+    private static Thread launcher;
+    private static volatile Throwable launchFailure;
+    
+    @BeforeAll
+    static void launchApp() throws Exception {
+        dataDir = Files.createTempDirectory("tiltovozik-uiperf");
+        launcher = new Thread(() -> {
+            try {
+                Application.launch(TiltTrackerApp.class,
+                    "--player=Тест", "--data=" + dataDir, "--ingest-port=0", "--alerts=off");
+            } catch (Throwable e) {
+                launchFailure = e;
+            }
+        }, "tiltovozik-ui-test");
+        launcher.setDaemon(true);
+        launcher.start();
+    }
+    
+    @AfterAll
+    static void exitApp() throws Exception {
+        if (launcher != null) {
+            Platform.exit();
+            launcher.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        if (dataDir != null) {
+            try (Stream<Path> files = Files.walk(dataDir)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toArray(Path[]::new)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+    
+    @Test
+    void clickToFrameLatencyStaysWithinBudget() throws Exception {
+        int clicks = Integer.getInteger("uiperf.clicks", 2000);
+        int warmup = Integer.getInteger("uiperf.warmup", 300);
+        Random random = new Random(42);
+        Scene scene = awaitMainScene();
+        ClickDriver driver = onFxThread(() -> new ClickDriver(scene));
+        
+        for (int i = 0; i < warmup; i++) {
+            driver.click(random);
+        }
+        
+        long[] latencies = new long[clicks];
+        GcPauses gcPauses = GcPauses.start();
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < clicks; i++) {
+            latencies[i] = driver.click(random);
+        }
+        long elapsed = System.nanoTime() - started;
+        long allocated = allocatedBytes() - allocatedBefore;
+        gcPauses.stop();
+        
+        Arrays.sort(latencies);
+        double p50 = millis(percentile(latencies, 0.50));
+        double p90 = millis(percentile(latencies, 0.90));
+        double p99 = millis(percentile(latencies, 0.99));
+        double max = millis(latencies[latencies.length - 1]);
+        long allocatedPerClick = allocated / clicks;
+        
+        System.out.printf("Отзывчивость UI: %d нажатий за %.1f с%n", clicks, elapsed / 1e9);
+        System.out.printf("  нажатие -> кадр: p50 %.2f мс, p90 %.2f мс, p99 %.2f мс, максимум %.2f мс%n", p50, p90, p99, max);
+        System.out.printf("  выделено: %.1f КБ на нажатие, %.1f МБ/с%n",
+            allocatedPerClick / 1024.0, allocated / (1024.0 * 1024.0) / (elapsed / 1e9));
+        System.out.printf("  сборки мусора: %d, суммарно %d мс, максимальная пауза %d мс%n",
+            gcPauses.count(), gcPauses.totalMillis(), gcPauses.maxMillis());
+        
+        // Бюджет без значения не проверяется: прогон без бюджетов служит для их записи
+        Long budgetP50 = Long.getLong("uiperf.budget.p50");
+        Long budgetP99 = Long.getLong("uiperf.budget.p99");
+        Long budgetMax = Long.getLong("uiperf.budget.max");
+        Long budgetAlloc = Long.getLong("uiperf.budget.alloc");
+        Long budgetGc = Long.getLong("uiperf.budget.gc");
+        if (Stream.of(budgetP50, budgetP99, budgetMax, budgetAlloc, budgetGc).allMatch(Objects::isNull)) {
+            System.out.println("  бюджеты не заданы, прогон только записывает значения");
+        }
+        assertAll("бюджеты отзывчивости UI",
+            () -> assertTrue(budgetP50 == null || p50 <= budgetP50,
+                () -> String.format("p50 %.2f мс превышает бюджет %d мс", p50, budgetP50)),
+            () -> assertTrue(budgetP99 == null || p99 <= budgetP99,
+                () -> String.format("p99 %.2f мс превышает бюджет %d мс", p99, budgetP99)),
+            () -> assertTrue(budgetMax == null || max <= budgetMax,
+                () -> String.format("максимум %.2f мс превышает бюджет %d мс", max, budgetMax)),
+            () -> assertTrue(budgetAlloc == null || allocatedPerClick <= budgetAlloc,
+                () -> String.format("выделение %d байт на нажатие превышает бюджет %d байт", allocatedPerClick, budgetAlloc)),
+            () -> assertTrue(budgetGc == null || gcPauses.maxMillis() <= budgetGc,
+                () -> String.format("пауза сборки мусора %d мс превышает бюджет %d мс", gcPauses.maxMillis(), budgetGc)));
+    }
+    
+    /**
+     * Нажимает кнопки главного окна по одной и ждет кадра с результатом.
+     * Изменение тильта случайно, поэтому кадр сверяется сам с собой: шкала сдвинулась в сторону результата,
+     * а tiltLabel показывает состояние для значения на шкале
+     */
+    private static final class ClickDriver {
+        private final Robot robot = new Robot();
+        private final Node winButton;
+        private final Node loseButton;
+        private final Label tiltLabel;
+        private final Label messageLabel;
+        private final Label statsLabel;
+        private final ProgressBar tiltBar;
+        private int games;
+        
+        // Изменяются только в потоке JavaFX
+        private CompletableFuture<Long> pendingFrame;
+        private String expectedStats;
+        private boolean expectedWin;
+        private int shownTilt;
+        private long clickStartedNanos;
+        
+        ClickDriver(Scene scene) {
+            winButton = scene.lookup(".win-button");
+            loseButton = scene.lookup(".lose-button");
+            tiltLabel = (Label) scene.lookup(".tilt-label");
+            messageLabel = (Label) scene.lookup(".message-label");
+            statsLabel = (Label) scene.lookup(".stats-label");
+            tiltBar = (ProgressBar) scene.lookup(".tilt-bar");
+            shownTilt = shownTilt();
+            // Слушатель добавлен после слушателя приложения и видит сцену такой, какой она уйдет на отрисовку
+            scene.addPostLayoutPulseListener(this::onFrame);
+        }
+        
+        /**
+         * Нажимает случайную кнопку в случайной фазе кадра
+         * @return задержка от нажатия до кадра с результатом в наносекундах
+         */
+        long click(Random random) throws Exception {
+            LockSupport.parkNanos(random.nextLong(FRAME_NANOS));
+            boolean isWin = random.nextBoolean();
+            String stats = "Игр: " + ++games + " ";
+            
+            CompletableFuture<Long> frame = new CompletableFuture<>();
+            Platform.runLater(() -> press(isWin, stats, frame));
+            try {
+                return frame.get(FRAME_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                return fail("Кадр с результатом нажатия " + games + " не появился за " + FRAME_TIMEOUT_SECONDS + " с");
+            } catch (ExecutionException e) {
+                throw (AssertionError) e.getCause();
+            }
+        }
+        
+        private void press(boolean isWin, String stats, CompletableFuture<Long> frame) {
+            pendingFrame = frame;
+            expectedWin = isWin;
+            expectedStats = stats;
+            Node button = isWin ? winButton : loseButton;
+            Bounds bounds = button.localToScreen(button.getBoundsInLocal());
+            clickStartedNanos = System.nanoTime();
+            robot.mouseMove(new Point2D(bounds.getCenterX(), bounds.getCenterY()));
+            robot.mouseClick(MouseButton.PRIMARY);
+        }
+        
+        private void onFrame() {
+            if (pendingFrame == null || !statsLabel.getText().startsWith(expectedStats)) return;
+            
+            long latency = System.nanoTime() - clickStartedNanos;
+            CompletableFuture<Long> frame = pendingFrame;
+            pendingFrame = null;
+            int tilt = shownTilt();
+            boolean moved = expectedWin ? tilt < shownTilt || tilt == TiltEngine.MIN_TILT
+                                        : tilt > shownTilt || tilt == TiltEngine.MAX_TILT;
+            String expectedState = TiltState.fromValue(tilt).getFullDisplayName();
+            shownTilt = tilt;
+            if (!moved) {
+                frame.completeExceptionally(new AssertionError(
+                    expectedStats + "- шкала тильта не сдвинулась после " + (expectedWin ? "победы" : "поражения") + ": " + tilt));
+            } else if (!expectedState.equals(tiltLabel.getText())) {
+                frame.completeExceptionally(new AssertionError(
+                    expectedStats + "- tiltLabel показывает \"" + tiltLabel.getText() + "\" вместо \"" + expectedState + "\""));
+            } else if (messageLabel.getText().isEmpty()
+                       || !messageLabel.getPseudoClassStates().contains(expectedWin ? WIN_PSEUDO_CLASS : LOSE_PSEUDO_CLASS)) {
+                frame.completeExceptionally(new AssertionError(
+                    expectedStats + "- messageLabel не показывает " + (expectedWin ? "победу" : "поражение") + ": " + messageLabel.getText()));
+            } else {
+                frame.complete(latency);
+            }
+        }
+        
+        private int shownTilt() {
+            return (int) Math.round(tiltBar.getProgress() * (TiltEngine.MAX_TILT - TiltEngine.MIN_TILT)) + TiltEngine.MIN_TILT;
+        }
+    }
+    
+    /**
+     * Паузы сборщика мусора по уведомлениям JMX, завершение параллельных циклов паузой не считается
+     */
+    private static final class GcPauses implements NotificationListener {
+        private final List<NotificationEmitter> emitters = new ArrayList<>();
+        private long count;
+        private long totalMillis;
+        private long maxMillis;
+        
+        static GcPauses start() {
+            GcPauses pauses = new GcPauses();
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                if (collector instanceof NotificationEmitter) {
+                    NotificationEmitter emitter = (NotificationEmitter) collector;
+                    emitter.addNotificationListener(pauses, null, null);
+                    pauses.emitters.add(emitter);
+                }
+            }
+            return pauses;
+        }
+        
+        @Override
+        public synchronized void handleNotification(Notification notification, Object handback) {
+            if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) return;
+            
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            if (info.getGcAction().contains("concurrent")) return;
+            
+            long duration = info.getGcInfo().getDuration();
+            count++;
+            totalMillis += duration;
+            maxMillis = Math.max(maxMillis, duration);
+        }
+        
+        void stop() throws Exception {
+            for (NotificationEmitter emitter : emitters) {
+                emitter.removeNotificationListener(this);
+            }
+        }
+        
+        synchronized long count() {
+            return count;
+        }
+        
+        synchronized long totalMillis() {
+            return totalMillis;
+        }
+        
+        synchronized long maxMillis() {
+            return maxMillis;
+        }
+    }
+    
+    private static Scene awaitMainScene() throws Exception {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT_NANOS;
+        while (System.nanoTime() < deadline && launchFailure == null) {
+            try {
+                Scene found = onFxThread(TiltTrackerUiPerformanceTest::findMainScene);
+                if (found != null) return found;
+            } catch (IllegalStateException | TimeoutException e) {
+                // JavaFX еще не запущен или уже останавливается после ошибки запуска
+            }
+            Thread.sleep(100);
+        }
+        if (launchFailure != null) {
+            if (missingNativeLibrary(launchFailure)) {
+                throw new AssertionError("Нет системных библиотек JavaFX (Pango, FreeType, fontconfig):"
+                    + " профиль uiperf запускается только там, где они установлены", launchFailure);
+            }
+            throw new AssertionError("Приложение не запустилось", launchFailure);
+        }
+        return fail("Главное окно не появилось за " + TimeUnit.NANOSECONDS.toSeconds(STARTUP_TIMEOUT_NANOS) + " с");
+    }
+    
+    private static Scene findMainScene() {
+        for (Window window : Window.getWindows()) {
+            // Окно помечается показанным до первой раскладки, а без измерения текста надпись так и останется нулевой ширины
+            Scene scene = window.getScene();
+            Node tiltLabel = scene == null ? null : scene.lookup(".tilt-label");
+            if (window.isShowing() && tiltLabel != null && tiltLabel.getLayoutBounds().getWidth() > 0) {
+                return scene;
+            }
+        }
+        return null;
+    }
+    
+    private static boolean missingNativeLibrary(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            // Ошибка загрузки библиотеки в статическом инициализаторе доходит только текстом сообщения
+            if (cause instanceof UnsatisfiedLinkError || String.valueOf(cause.getMessage()).contains("UnsatisfiedLinkError")) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static <T> T onFxThread(Supplier<T> action) throws Exception {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Platform.runLater(() -> {
+            try {
+                result.complete(action.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result.get(FRAME_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Выделено памяти всеми потоками, кроме потока теста
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long total = -threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+    
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+    }
+    
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package ai.generated.tiltovozik;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Точка входа без JavaFX: демон приема результатов и утилиты командной строки.
+ * Зависит только от ядра, поэтому запускается на сервере без дисплея
+ */
+public final class TiltovozikHeadless {
+    private static final String WIN_PHRASES_FILE = "win_phrases.txt";
+    private static final String LOSE_PHRASES_FILE = "lose_phrases.txt";
+    private static final String PHRASE_PACK_FILE = "phrases.tpack";
+    private static final Path DEFAULT_DATA_DIR = Paths.get(System.getProperty("user.home"), ".tiltovozik", "daemon");
+    private static final int DEFAULT_PLAYERS = 5000;
+    private static final int DEFAULT_STATS_INTERVAL_SECONDS = 10;
+    private static final int INGEST_THREADS = 2;
+    // Один реестр наборов языков и тем на процесс, общий для всех сессий
+    private static final PhraseCorpusRegistry PHRASES = new PhraseCorpusRegistry();
+    
+    private final TiltEngine engine;
+    private final TiltPersistence persistence;
+    private final TiltAlerter alerter;
+    private final AtomicLong ingested = new AtomicLong();
+    private final PhraseManager phraseManager = new PhraseManager();
+    private final ConcurrentHashMap<Integer, PhraseHistory> phraseHistories = new ConcurrentHashMap<>();
+    private final Set<String> watchedLocales = ConcurrentHashMap.newKeySet();
+    private PhraseReloader phraseReloader;
+    
+    private TiltovozikHeadless(TiltEngine engine, TiltPersistence persistence, TiltAlerter alerter) {
+        this.engine = engine;
+        this.persistence = persistence;
+        this.alerter = alerter;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(2);
+        }
+        String[] rest = Arrays.copyOfRange(args, 1, args.length);
+        switch (args[0]) {
+            case "serve" -> serve(parseOptions(rest));
+            case "phrase" -> phrase(parseOptions(rest));
+            case "export" -> export(parseOptions(rest));
+            case "simulate" -> TiltSimulator.main(rest);
+            case "compile-pack" -> PhrasePackCompiler.main(rest);
+            case "load-test" -> IngestionLoadClient.main(rest);
+            case "alert-stub" -> AlertReceiverStub.main(rest);
+            default -> {
+                System.err.println("Неизвестная команда: " + args[0]);
+                printUsage();
+                System.exit(2);
+            }
+        }
+    }
+    
+    private static void printUsage() {
+        System.err.println("Использование: TiltovozikHeadless <команда> [параметры]");
+        System.err.println("  serve [--port=8765] [--players=5000] [--data=~/.tiltovozik/daemon] [--tilt-model=classic] [--stats-interval=10]");
+        System.err.println("        [--alerts=on|off] [--alert-webhook=http://127.0.0.1:8766/alerts]");
+        System.err.println("  phrase [--result=win|lose] [--tilt=0] [--name=Игрок] [--count=1] [--locale=ru] [--theme=seasonal]");
+        System.err.println("  export --output=history.csv|.jsonl|.tcol [--data=~/.tiltovozik/daemon] [--phrases=on|off]");
+        System.err.println("  alert-stub [порт] [задержка, мс]");
+        System.err.println("  simulate [сессий] [игр] [винрейт] [зерно] [модель] [потоков] [победа] [поражение] [--bands=...] [--histogram=10]");
+        System.err.println("  compile-pack <win_phrases.txt> <lose_phrases.txt> <phrases.tpack>");
+        System.err.println("  load-test [порт] [событий] [потоков] [пакет] [сессий]");
+    }
+    
+    /**
+     * Разбирает параметры вида --имя=значение, как именованные параметры JavaFX-приложения
+     */
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Ожидался параметр вида --имя=значение: " + arg);
+            }
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+    
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+    
+    /**
+     * Запускает демон: восстанавливает сессии из журнала, принимает результаты по HTTP
+     * и периодически печатает сводку до остановки процесса
+     */
+    private static void serve(Map<String, String> options) throws Exception {
+        long started = System.nanoTime();
+        IngestionServer.preferNoDelay();
+        int port = intOption(options, "port", IngestionServer.DEFAULT_PORT);
+        int players = intOption(options, "players", DEFAULT_PLAYERS);
+        int statsInterval = intOption(options, "stats-interval", DEFAULT_STATS_INTERVAL_SECONDS);
+        Path dataDir = options.containsKey("data") ? Paths.get(options.get("data")) : DEFAULT_DATA_DIR;
+        TiltModel model = options.containsKey("tilt-model") ? TiltModel.load(options.get("tilt-model")) : TiltModel.classic();
+        
+        TiltEngine engine = new TiltEngine(players, model);
+        TiltAlerter alerter = createAlerter(options, players);
+        TiltPersistence persistence = TiltPersistence.open(dataDir, engine);
+        TiltovozikHeadless daemon = new TiltovozikHeadless(engine, persistence, alerter);
+        daemon.loadPhrases();
+        IngestionServer server;
+        try {
+            server = new IngestionServer(port, INGEST_THREADS, daemon::ingestResult);
+            server.addHandler("/phrase", daemon::handlePhrase);
+            server.start();
+        } catch (Exception e) {
+            persistence.close();
+            throw e;
+        }
+        
+        ScheduledExecutorService stats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tiltovozik-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (statsInterval > 0) {
+            stats.scheduleAtFixedRate(daemon::printStats, statsInterval, statsInterval, TimeUnit.SECONDS);
+        }
+        
+        // Демон работает до SIGTERM или Ctrl+C, журнал и снимок сохраняются в хуке завершения
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stats.shutdownNow();
+            server.close();
+            if (daemon.phraseReloader != null) {
+                try {
+                    daemon.phraseReloader.close();
+                } catch (IOException e) {
+                    System.err.println("Ошибка остановки перезагрузки фраз: " + e.getMessage());
+                }
+            }
+            if (alerter != null) {
+                alerter.close();
+            }
+            try {
+                persistence.close();
+            } catch (Exception e) {
+                System.err.println("Ошибка сохранения сессий: " + e.getMessage());
+            }
+            daemon.printStats();
+            stopped.countDown();
+        }, "tiltovozik-shutdown"));
+        
+        System.out.printf("Модель %s, сессий %d, данные в %s, запуск %.1f мс%n",
+                          model.name(), players, dataDir, (System.nanoTime() - started) / 1e6);
+        stopped.await();
+    }
+    
+    /**
+     * Оповещения пишутся в вывод демона и, если задан, отправляются на вебхук
+     * @return null, если оповещения выключены
+     */
+    private static TiltAlerter createAlerter(Map<String, String> options, int players) {
+        if ("off".equals(options.get("alerts"))) {
+            return null;
+        }
+        List<AlertSink> sinks = new ArrayList<>();
+        sinks.add(new LogAlertSink(System.out));
+        if (options.containsKey("alert-webhook")) {
+            sinks.add(new WebhookAlertSink(URI.create(options.get("alert-webhook"))));
+        }
+        return new TiltAlerter(players, sinks);
+    }
+    
+    /**
+     * Загружает набор по умолчанию и следит за его файлами; при перезагрузке
+     * наборы языков и тем выгружаются из реестра и читаются заново при следующем запросе
+     */
+    private void loadPhrases() {
+        try {
+            phraseManager.loadPhrases(PHRASE_PACK_FILE, WIN_PHRASES_FILE, LOSE_PHRASES_FILE);
+        } catch (Exception e) {
+            System.err.println("Ошибка загрузки фраз: " + e.getMessage());
+        }
+        try {
+            phraseReloader = new PhraseReloader(phraseManager, PHRASE_PACK_FILE, WIN_PHRASES_FILE, LOSE_PHRASES_FILE);
+            phraseReloader.invalidateOnReload(PHRASES);
+            phraseReloader.start();
+        } catch (Exception e) {
+            System.err.println("Перезагрузка фраз на лету недоступна: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Отдает фразу для сессии: GET /phrase?session=42&result=lose&locale=ru&theme=seasonal&name=Вася.
+     * Набор берется из общего реестра по языку и теме запроса, история показанных фраз - своя у каждой сессии
+     */
+    private void handlePhrase(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                IngestionServer.respond(exchange, 405, "Используйте GET");
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String result = query.getOrDefault("result", "win");
+            int sessionId;
+            PhraseCorpus corpus;
+            try {
+                sessionId = Integer.parseInt(query.getOrDefault("session", "0"));
+                if (sessionId < 0 || sessionId >= engine.capacity()) {
+                    throw new IllegalArgumentException("Нет сессии " + sessionId);
+                }
+                if (!result.equals("win") && !result.equals("lose")) {
+                    throw new IllegalArgumentException("Результат должен быть win или lose: " + result);
+                }
+                corpus = resolvePhrases(query.get("locale"), query.get("theme"));
+            } catch (IllegalArgumentException e) {
+                IngestionServer.respond(exchange, 400, e.getMessage());
+                return;
+            }
+            
+            PhraseHistory history = phraseHistories.computeIfAbsent(sessionId, id -> phraseManager.newHistory());
+            PhraseContext context = new PhraseContext()
+                .setUsername(query.getOrDefault("name", "Игрок"))
+                .setTilt(engine.tiltOf(sessionId))
+                .setStreak(engine.streakOf(sessionId));
+            IngestionServer.respond(exchange, 200, phraseManager.getRandomPhrase(
+                corpus, history, result.equals("win"), context, ThreadLocalRandom.current()));
+        }
+    }
+    
+    /**
+     * Без языка - набор по умолчанию, иначе набор из реестра с цепочкой замены.
+     * Файлы запрошенного языка и темы добавляются к наблюдаемым при первом запросе
+     */
+    private PhraseCorpus resolvePhrases(String locale, String theme) {
+        if (locale == null || locale.isBlank()) {
+            return phraseManager.getCorpus();
+        }
+        PhraseCorpus corpus = PHRASES.resolve(locale, theme);
+        if (phraseReloader != null && watchedLocales.add(locale + "/" + theme)) {
+            try {
+                phraseReloader.watchFiles(PhraseCorpusRegistry.sourceFiles(locale, theme));
+            } catch (IOException e) {
+                System.err.println("Перезагрузка фраз " + locale + " на лету недоступна: " + e.getMessage());
+            }
+        }
+        return corpus;
+    }
+    
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                          URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+    
+    private void ingestResult(int sessionId, boolean isWin) {
+        if (sessionId >= engine.capacity()) return;
+        
+        long result = engine.recordResult(sessionId, isWin);
+        int after = TiltEngine.tiltAfter(result);
+        persistence.record(sessionId, isWin ? EventJournal.WIN : EventJournal.LOSE,
+                           after - TiltEngine.tiltBefore(result), after, -1);
+        if (alerter != null) {
+            alerter.observe(sessionId, after, System.currentTimeMillis());
+        }
+        ingested.incrementAndGet();
+    }
+    
+    private void printStats() {
+        int[] tilts = new int[engine.capacity()];
+        engine.copyTilts(tilts);
+        long[] histogram = TiltClassifier.classify(tilts, null);
+        StringBuilder line = new StringBuilder("Принято результатов: ").append(ingested.get());
+        for (TiltState state : TiltState.values()) {
+            long count = histogram[state.ordinal()];
+            if (count > 0) {
+                line.append(", ").append(state.getDisplayName()).append(": ").append(count);
+            }
+        }
+        if (alerter != null) {
+            line.append("; ").append(alerter.summary());
+        }
+        System.out.println(line);
+    }
+    
+    /**
+     * Экспортирует журнал событий в файл. Журнал открывается только для чтения,
+     * поэтому экспорт можно делать, пока демон продолжает принимать результаты
+     */
+    private static void export(Map<String, String> options) throws Exception {
+        String output = options.get("output");
+        if (output == null) {
+            throw new IllegalArgumentException("Не указан файл экспорта: --output=history.csv");
+        }
+        Path file = Paths.get(output);
+        Path dataDir = options.containsKey("data") ? Paths.get(options.get("data")) : DEFAULT_DATA_DIR;
+        PhraseCorpus corpus = null;
+        if (!"off".equals(options.get("phrases"))) {
+            PhraseManager phraseManager = new PhraseManager();
+            phraseManager.loadPhrases(PHRASE_PACK_FILE, WIN_PHRASES_FILE, LOSE_PHRASES_FILE);
+            corpus = phraseManager.getCorpus();
+        }
+        
+        try (EventJournal journal = EventJournal.openReadOnly(TiltPersistence.journalFile(dataDir))) {
+            JournalExporter exporter = new JournalExporter(journal, corpus);
+            exporter.export(file, JournalExporter.Format.forFile(file), (exported, total) ->
+                System.err.printf("\rЭкспорт: %d из %d", exported, total));
+            System.err.println();
+        }
+    }
+    
+    /**
+     * Печатает фразы для заданного результата и уровня тильта, например для проверки пакета фраз
+     */
+    private static void phrase(Map<String, String> options) throws Exception {
+        String result = options.getOrDefault("result", "win");
+        if (!result.equals("win") && !result.equals("lose")) {
+            throw new IllegalArgumentException("Результат должен быть win или lose: " + result);
+        }
+        int tilt = TiltEngine.clamp(intOption(options, "tilt", 0));
+        int count = intOption(options, "count", 1);
+        
+        PhraseManager phraseManager = new PhraseManager();
+        if (options.containsKey("locale")) {
+            phraseManager.setCorpus(PHRASES.resolve(options.get("locale"), options.get("theme")));
+        } else {
+            phraseManager.loadPhrases(PHRASE_PACK_FILE, WIN_PHRASES_FILE, LOSE_PHRASES_FILE);
+        }
+        PhraseHistory history = phraseManager.newHistory();
+        PhraseContext context = new PhraseContext()
+            .setUsername(options.getOrDefault("name", "Игрок"))
+            .setTilt(tilt);
+        Random random = new Random();
+        for (int i = 0; i < count; i++) {
+            System.out.println(phraseManager.getRandomPhrase(history, result.equals("win"), context, random));
+        }
+    }
+}